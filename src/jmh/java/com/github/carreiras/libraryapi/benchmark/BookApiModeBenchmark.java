@@ -0,0 +1,121 @@
+package com.github.carreiras.libraryapi.benchmark;
+
+import com.github.carreiras.libraryapi.LibraryApiApplication;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga HTTP concorrente em {@code GET /api/books/{id}}, comparando o modo servlet (pool fixo do
+ * Tomcat), o modo {@code async} (pool limitado atrás do Tomcat), o modo servlet com virtual threads
+ * (requer rodar o benchmark em JDK 21+) e o profile {@code reactive} sob o mesmo número de clientes
+ * simultâneos. O cache de livros é desligado, já que o modo reativo não o usa: em todos os modos cada
+ * requisição lê da base.
+ * <p>
+ * Ao fim de cada modo é impresso o pico de threads do servidor, amostrado pelo nome das threads que
+ * atendem as requisições; os clientes do JMH e do {@link HttpClient} ficam de fora. No modo
+ * {@code virtual} contam-se as threads carregadoras, já que as virtual threads não aparecem no
+ * {@link ThreadMXBean}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class BookApiModeBenchmark {
+
+    static final int CATALOG_SIZE = 1000;
+
+    @Param({"servlet", "async", "virtual", "reactive"})
+    String mode;
+
+    ConfigurableApplicationContext context;
+    HttpClient httpClient;
+    List<URI> uris;
+    ScheduledExecutorService threadSampler;
+    volatile int serverThreadPeak;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .profiles("reactive".equals(mode) ? new String[]{"reactive"} : new String[0])
+                .properties("server.port=0", "spring.devtools.restart.enabled=false", "logging.level.root=WARN",
+                        "spring.cache.type=none", "library.execution.mode=" + ("reactive".equals(mode) || "servlet".equals(mode) ? "platform" : mode))
+                .run();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        BookService bookService = context.getBean(BookService.class);
+        List<Book> books = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++)
+            books.add(Book.builder().title("Livro " + i).author("Autor").isbn("isbn-" + i).build());
+        uris = new ArrayList<>(CATALOG_SIZE);
+        bookService.saveAll(books).forEach(book ->
+                uris.add(URI.create("http://localhost:" + port + "/api/books/" + book.getId())));
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<String> prefixes = serverThreadPrefixes();
+        threadSampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "server-thread-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        threadSampler.scheduleAtFixedRate(() -> serverThreadPeak = Math.max(serverThreadPeak, countThreads(prefixes)),
+                0, 50, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        threadSampler.shutdownNow();
+        System.out.printf("%n%s: pico de %d threads do servidor %s%n", mode, serverThreadPeak, serverThreadPrefixes());
+        context.close();
+    }
+
+    private List<String> serverThreadPrefixes() {
+        switch (mode) {
+            case "async":
+                return Arrays.asList("http-nio-", "book-request-");
+            case "virtual":
+                return Arrays.asList("http-nio-", "ForkJoinPool-");
+            case "reactive":
+                return Arrays.asList("reactor-http-", "boundedElastic-");
+            default:
+                return Arrays.asList("http-nio-");
+        }
+    }
+
+    private static int countThreads(List<String> prefixes) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int count = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 0))
+            if (info != null && prefixes.stream().anyMatch(info.getThreadName()::startsWith))
+                count++;
+        return count;
+    }
+
+    @Benchmark
+    public int findById() throws Exception {
+        URI uri = uris.get(ThreadLocalRandom.current().nextInt(uris.size()));
+        HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200)
+            throw new IllegalStateException("Status " + response.statusCode() + " em " + uri);
+        return response.body().length;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.carreiras.libraryapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização JSON das respostas com o mesmo {@link ObjectMapper} que o Spring configura para a API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookJsonBenchmark {
+
+    @Param({"20", "200"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    BookDTO bookDTO;
+    Page<BookDTO> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bookDTO = BookDTO.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+        List<BookDTO> content = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++)
+            content.add(BookDTO.builder().id(i).title("Livro " + i).author("Autor " + i).isbn("isbn-" + i).build());
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] bookDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookDTO);
+    }
+
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
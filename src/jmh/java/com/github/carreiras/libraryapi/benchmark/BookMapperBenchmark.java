@@ -0,0 +1,48 @@
+package com.github.carreiras.libraryapi.benchmark;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
+import com.github.carreiras.libraryapi.api.mapper.impl.BookMapperImpl;
+import com.github.carreiras.libraryapi.api.mapper.impl.ModelMapperBookMapper;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por objeto de cada {@link BookMapper}. Rode com o profiler gc (padrão do profile
+ * {@code benchmarks}) para obter a taxa de alocação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+    @Param({"direct", "modelmapper"})
+    String mapper;
+
+    BookMapper bookMapper;
+    Book book;
+    BookDTO bookDTO;
+
+    @Setup
+    public void setUp() {
+        bookMapper = "direct".equals(mapper) ? new BookMapperImpl() : new ModelMapperBookMapper(new ModelMapper());
+        book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+        bookDTO = BookDTO.builder().title("Livro").author("Autor").isbn("001").build();
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return bookMapper.toEntity(bookDTO);
+    }
+
+    @Benchmark
+    public BookDTO toDto() {
+        return bookMapper.toDto(book);
+    }
+}
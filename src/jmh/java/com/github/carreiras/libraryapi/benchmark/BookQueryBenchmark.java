@@ -0,0 +1,82 @@
+package com.github.carreiras.libraryapi.benchmark;
+
+import com.github.carreiras.libraryapi.LibraryApiApplication;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.repository.BookRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listagem de livros por página: entidades gerenciadas (consulta por exemplo do repositório) contra a
+ * projeção {@link BookRepository#findPage}. Com {@code -prof gc}, {@code gc.alloc.rate.norm} mostra a
+ * alocação por página.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookQueryBenchmark {
+
+    private static final int CATALOG_SIZE = 10000;
+
+    @Param({"20", "200", "2000"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    BookRepository bookRepository;
+    Book filter;
+    Example<Book> example;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE")
+                .run();
+        bookRepository = context.getBean(BookRepository.class);
+        List<Book> chunk = new ArrayList<>();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            chunk.add(Book.builder().title("Livro " + i).author("Autor " + (i % 100)).isbn("isbn-" + i).build());
+            if (chunk.size() == 1000) {
+                bookRepository.saveAll(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        filter = Book.builder().author("autor").build();
+        example = Example.of(filter, ExampleMatcher.matching()
+                .withIgnoreCase()
+                .withIgnoreNullValues()
+                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+        pageRequest = PageRequest.of(1, pageSize, Sort.by("title"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> entities() {
+        return bookRepository.findAll(example, pageRequest);
+    }
+
+    @Benchmark
+    public Page<Book> projection() {
+        return bookRepository.findPage(filter, pageRequest);
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.carreiras.libraryapi.benchmark;
+
+import com.github.carreiras.libraryapi.LibraryApiApplication;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Operações do {@link BookService} contra o H2 embarcado, com o catálogo pré-carregado em cada tamanho.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int catalogSize;
+
+    ConfigurableApplicationContext context;
+    BookService bookService;
+    List<Long> ids;
+    AtomicLong isbnSequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE")
+                .run();
+        bookService = context.getBean(BookService.class);
+        ids = new ArrayList<>(catalogSize);
+        List<Book> chunk = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            chunk.add(Book.builder().title("Livro " + i).author("Autor " + (i % 100)).isbn("isbn-" + i).build());
+            if (chunk.size() == 1000 || i == catalogSize - 1) {
+                bookService.saveAll(chunk).forEach(book -> ids.add(book.getId()));
+                chunk = new ArrayList<>();
+            }
+        }
+        isbnSequence = new AtomicLong(catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book save() {
+        long n = isbnSequence.getAndIncrement();
+        return bookService.save(Book.builder().title("Livro " + n).author("Autor").isbn("isbn-" + n).build());
+    }
+
+    @Benchmark
+    public Optional<Book> findById() {
+        return bookService.findById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public Page<Book> find() {
+        Book filter = Book.builder().title("livro 1").author("autor").build();
+        return bookService.find(filter, PageRequest.of(0, 20));
+    }
+}
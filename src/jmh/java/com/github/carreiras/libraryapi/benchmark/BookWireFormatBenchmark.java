@@ -0,0 +1,83 @@
+package com.github.carreiras.libraryapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialização e desserialização de uma página de {@link BookDTO} em JSON, CBOR e Smile. Ao preparar
+ * cada combinação é impresso o tamanho no fio, sem compressão e com gzip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookWireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"20", "200"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    JavaType contentType;
+    List<BookDTO> content;
+    byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory(format)).build();
+        contentType = objectMapper.getTypeFactory().constructCollectionType(List.class, BookDTO.class);
+        content = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++)
+            content.add(BookDTO.builder().id(i).title("Livro " + i).author("Autor " + i).isbn("isbn-" + i).build());
+        encoded = objectMapper.writeValueAsBytes(new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000));
+        System.out.printf("%n%s/%d: %d bytes, %d bytes com gzip%n", format, pageSize, encoded.length, gzip(encoded).length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000));
+    }
+
+    @Benchmark
+    public List<BookDTO> deserialize() throws IOException {
+        return objectMapper.readValue(objectMapper.readTree(encoded).get("content").traverse(objectMapper), contentType);
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "cbor":
+                return new CBORFactory();
+            case "smile":
+                return new SmileFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
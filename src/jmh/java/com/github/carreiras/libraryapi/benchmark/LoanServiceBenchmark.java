@@ -0,0 +1,96 @@
+package com.github.carreiras.libraryapi.benchmark;
+
+import com.github.carreiras.libraryapi.LibraryApiApplication;
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import com.github.carreiras.libraryapi.service.BookService;
+import com.github.carreiras.libraryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vazão de empréstimos no {@link LoanService} contra o H2 embarcado, com 16 threads: disputando o mesmo
+ * livro (só uma consegue o empréstimo, as demais são recusadas) ou cada uma com o seu livro. Quem
+ * consegue o empréstimo devolve o livro em seguida, para a operação seguinte poder emprestá-lo de novo.
+ * As violações da constraint de empréstimo ativo são esperadas na disputa e não vão para o log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    ConfigurableApplicationContext context;
+    BookService bookService;
+    LoanService loanService;
+    Book shared;
+    AtomicLong isbnSequence;
+
+    @State(Scope.Thread)
+    public static class OwnBook {
+
+        Book book;
+
+        @Setup(Level.Trial)
+        public void setUp(LoanServiceBenchmark benchmark) {
+            book = benchmark.newBook();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF",
+                        "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF",
+                        "spring.datasource.url=jdbc:h2:mem:loan-benchmark;DB_CLOSE_ON_EXIT=FALSE")
+                .run();
+        bookService = context.getBean(BookService.class);
+        loanService = context.getBean(LoanService.class);
+        isbnSequence = new AtomicLong();
+        shared = newBook();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean contendedCheckout() {
+        return checkoutAndReturn(shared);
+    }
+
+    @Benchmark
+    public boolean checkout(OwnBook own) {
+        return checkoutAndReturn(own.book);
+    }
+
+    Book newBook() {
+        long n = isbnSequence.getAndIncrement();
+        return bookService.save(Book.builder().title("Livro " + n).author("Autor").isbn("loan-isbn-" + n).build());
+    }
+
+    private boolean checkoutAndReturn(Book book) {
+        Loan loan;
+        try {
+            loan = loanService.save(Loan.builder().book(book).customer("Cliente").loanDate(LocalDate.now()).build());
+        } catch (BusinessException ex) {
+            return false;
+        }
+        loan.setReturned(true);
+        loanService.update(loan);
+        return true;
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.carreiras.libraryapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.carreiras.libraryapi.LibraryApiApplication;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.BookService;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga HTTP contra a aplicação em H2. Semeia {@code load.books} livros e dispara a
+ * mistura {@code load.mix} de operações a uma taxa fixa de {@code load.rate} requisições por
+ * segundo. A latência é medida a partir do instante planejado de cada requisição, não do envio,
+ * para não esconder a fila quando o servidor atrasa (coordinated omission). A sequência de
+ * operações e de livros sorteados depende apenas de {@code load.seed}.
+ */
+public class LoadTest {
+
+    enum Operation {CREATE, GET, SEARCH, UPDATE, DELETE}
+
+    private static final String[] WORDS = {
+            "amor", "tempo", "mar", "cidade", "noite", "guerra", "casa", "rio", "sol", "memoria",
+            "sertao", "viagem", "sombra", "jardim", "cronica", "ilha", "vento", "fogo", "pedra", "luz"};
+
+    private final int rate = Integer.getInteger("load.rate", 200);
+    private final int warmupSeconds = Integer.getInteger("load.warmup", 10);
+    private final int durationSeconds = Integer.getInteger("load.duration", 30);
+    private final int books = Integer.getInteger("load.books", 10_000);
+    private final long seed = Long.getLong("load.seed", 42);
+    private final int connections = Integer.getInteger("load.connections", 128);
+    private final String mixSpec = System.getProperty("load.mix", "get=60,search=20,create=10,update=5,delete=5");
+    private final String profiles = System.getProperty("load.profiles", "");
+    private final String properties = System.getProperty("load.properties", "");
+    private final Path output = Paths.get(System.getProperty("load.output", "target/load-test-result.json"));
+
+    private final Random random = new Random(seed);
+    private final NavigableMap<Integer, Operation> mix = new TreeMap<>();
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final List<Long> ids = new ArrayList<>();
+    private final Semaphore permits = new Semaphore(connections);
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private int mixTotal;
+    private long created;
+    private String baseUrl;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+    }
+
+    private void run() throws Exception {
+        for (String entry : mixSpec.split(",")) {
+            String[] weight = entry.trim().split("=");
+            mixTotal += Integer.parseInt(weight[1].trim());
+            mix.put(mixTotal, Operation.valueOf(weight[0].trim().toUpperCase(Locale.ROOT)));
+        }
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+
+        try (ConfigurableApplicationContext context = boot()) {
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/books";
+            seed(context.getBean(BookService.class));
+
+            drive(warmupSeconds);
+            recorders.values().forEach(Recorder::getIntervalHistogram);
+            errors.values().forEach(LongAdder::reset);
+
+            long start = System.nanoTime();
+            drive(durationSeconds);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            report(elapsed);
+        }
+    }
+
+    private ConfigurableApplicationContext boot() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> appProperties = new ArrayList<>(Arrays.asList("server.port=0", "logging.level.root=WARN"));
+        for (String property : properties.split(";"))
+            if (!property.trim().isEmpty())
+                appProperties.add(property.trim());
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .profiles(profiles.isEmpty() ? new String[0] : profiles.split(","))
+                .properties(appProperties.toArray(new String[0]))
+                .run();
+    }
+
+    private void seed(BookService bookService) {
+        List<Book> batch = new ArrayList<>();
+        for (int i = 0; i < books; i++) {
+            batch.add(Book.builder().title(title()).author("Autor " + word()).isbn("seed-" + i).build());
+            if (batch.size() == 1000 || i == books - 1) {
+                bookService.saveAll(batch).forEach(book -> ids.add(book.getId()));
+                batch = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Envia {@code rate * seconds} requisições nos instantes {@code início + i / rate}; se o envio
+     * atrasar (servidor lento ou sem conexões livres), o atraso entra na latência registrada.
+     */
+    private void drive(int seconds) throws InterruptedException {
+        long period = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long total = (long) rate * seconds;
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * period;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0)
+                LockSupport.parkNanos(wait);
+
+            Operation operation = mix.higherEntry(random.nextInt(mixTotal)).getValue();
+            if (ids.isEmpty() && operation != Operation.CREATE)
+                operation = Operation.SEARCH;
+            Operation recorded = operation;
+            HttpRequest request = request(operation);
+            permits.acquireUninterruptibly();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, ex) -> {
+                long latency = System.nanoTime() - intended;
+                permits.release();
+                recorders.get(recorded).recordValue(TimeUnit.NANOSECONDS.toMicros(latency));
+                if (ex != null || response.statusCode() >= 400)
+                    errors.get(recorded).increment();
+            });
+        }
+        permits.acquire(connections);
+        permits.release(connections);
+    }
+
+    private HttpRequest request(Operation operation) {
+        switch (operation) {
+            case CREATE:
+                return json(HttpRequest.newBuilder(URI.create(baseUrl)), "POST", String.format(
+                        "{\"title\":\"%s\",\"author\":\"Autor %s\",\"isbn\":\"load-%d-%d\"}", title(), word(), seed, created++));
+            case GET:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/" + anyId())).GET().build();
+            case UPDATE:
+                return json(HttpRequest.newBuilder(URI.create(baseUrl + "/" + anyId())), "PATCH",
+                        String.format("{\"title\":\"%s\"}", title()));
+            case DELETE:
+                Long id = ids.remove(random.nextInt(ids.size()));
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).DELETE().build();
+            default:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/search?size=20&q="
+                        + URLEncoder.encode(word(), StandardCharsets.UTF_8))).GET().build();
+        }
+    }
+
+    private static HttpRequest json(HttpRequest.Builder builder, String method, String body) {
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private Long anyId() {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private String title() {
+        return "Livro " + word() + " " + word();
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private void report(double elapsed) throws IOException {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", rate);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("durationSeconds", durationSeconds);
+        config.put("books", books);
+        config.put("seed", seed);
+        config.put("connections", connections);
+        config.put("mix", mixSpec);
+        config.put("profiles", profiles);
+        config.put("properties", properties);
+        config.put("javaVersion", System.getProperty("java.version"));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        System.out.printf("%n%-8s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            long operationErrors = errors.get(operation).sum();
+            if (histogram.getTotalCount() == 0)
+                continue;
+            all.add(histogram);
+            allErrors += operationErrors;
+            results.put(operation.name().toLowerCase(Locale.ROOT), summary(histogram, operationErrors, elapsed));
+            print(operation.name().toLowerCase(Locale.ROOT), histogram, operationErrors, elapsed);
+        }
+        results.put("all", summary(all, allErrors, elapsed));
+        print("all", all, allErrors, elapsed);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("config", config);
+        result.put("elapsedSeconds", elapsed);
+        result.put("results", results);
+        if (output.getParent() != null)
+            Files.createDirectories(output.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), result);
+        System.out.printf("%nResultado gravado em %s%n", output.toAbsolutePath());
+    }
+
+    private static void print(String name, Histogram histogram, long operationErrors, double elapsed) {
+        System.out.printf("%-8s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(),
+                operationErrors, histogram.getTotalCount() / elapsed,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, long operationErrors, double elapsed) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", operationErrors);
+        summary.put("throughput", histogram.getTotalCount() / elapsed);
+        for (double percentile : new double[]{50, 90, 99, 99.9})
+            summary.put("p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile)) + "Ms",
+                    histogram.getValueAtPercentile(percentile) / 1000.0);
+        summary.put("maxMs", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+}
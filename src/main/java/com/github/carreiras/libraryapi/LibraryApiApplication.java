@@ -1,10 +1,16 @@
 package com.github.carreiras.libraryapi;
 
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
+import com.github.carreiras.libraryapi.api.mapper.impl.BookMapperImpl;
+import com.github.carreiras.libraryapi.api.mapper.impl.ModelMapperBookMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 
+@EnableCaching
 @SpringBootApplication
 public class LibraryApiApplication {
 
@@ -16,4 +22,16 @@ public class LibraryApiApplication {
 	public ModelMapper modelMapper() {
 		return new ModelMapper();
 	}
+
+	@Bean
+	@ConditionalOnProperty(name = "library.mapper", havingValue = "direct", matchIfMissing = true)
+	public BookMapper bookMapper() {
+		return new BookMapperImpl();
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "library.mapper", havingValue = "modelmapper")
+	public BookMapper modelMapperBookMapper(ModelMapper modelMapper) {
+		return new ModelMapperBookMapper(modelMapper);
+	}
 }
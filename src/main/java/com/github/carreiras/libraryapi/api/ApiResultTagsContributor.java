@@ -0,0 +1,56 @@
+package com.github.carreiras.libraryapi.api;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Acrescenta a tag {@code result} ao timer {@code http.server.requests}: created, not_found,
+ * validation_error, duplicate_isbn, business_error, ok ou o grupo do status HTTP.
+ */
+@Component
+public class ApiResultTagsContributor implements WebMvcTagsContributor {
+
+    private static final String RESULT_ATTRIBUTE = ApiResultTagsContributor.class.getName() + ".RESULT";
+
+    /**
+     * Registra o resultado da requisição corrente; ignorado fora de uma requisição servlet.
+     */
+    public static void markResult(String result) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null)
+            attributes.setAttribute(RESULT_ATTRIBUTE, result, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                 Throwable exception) {
+        Object result = request.getAttribute(RESULT_ATTRIBUTE);
+        return Tags.of("result", result != null ? result.toString() : resultOf(response));
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return Tags.empty();
+    }
+
+    private static String resultOf(HttpServletResponse response) {
+        if (response == null)
+            return "unknown";
+        HttpStatus status = HttpStatus.resolve(response.getStatus());
+        if (status == HttpStatus.CREATED)
+            return "created";
+        if (status == HttpStatus.NOT_FOUND)
+            return "not_found";
+        if (status == null)
+            return "unknown";
+        return status.is2xxSuccessful() ? "ok" : status.series().name().toLowerCase();
+    }
+}
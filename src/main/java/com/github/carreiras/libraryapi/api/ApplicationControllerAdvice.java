@@ -0,0 +1,79 @@
+package com.github.carreiras.libraryapi.api;
+
+import com.github.carreiras.libraryapi.api.exception.ApiErrors;
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.service.BookService;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import javax.validation.ConstraintViolationException;
+
+@RestControllerAdvice
+public class ApplicationControllerAdvice {
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ApiErrors handleValidationException(MethodArgumentNotValidException ex) {
+        ApiResultTagsContributor.markResult("validation_error");
+        BindingResult bindingResult = ex.getBindingResult();
+        return new ApiErrors(bindingResult);
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ApiErrors handleWebExchangeBindException(WebExchangeBindException ex) {
+        return new ApiErrors(ex);
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ApiErrors handleConstraintViolationException(ConstraintViolationException ex) {
+        ApiResultTagsContributor.markResult("validation_error");
+        return new ApiErrors(ex);
+    }
+
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ApiErrors handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ApiResultTagsContributor.markResult("precondition_failed");
+        return new ApiErrors(new BusinessException("O livro foi alterado por outra requisição."));
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ApiErrors handleQueryTimeoutException(QueryTimeoutException ex) {
+        ApiResultTagsContributor.markResult("timeout");
+        return new ApiErrors(new BusinessException(ex.getMessage()));
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(TransactionTimedOutException.class)
+    public ApiErrors handleTransactionTimedOutException(TransactionTimedOutException ex) {
+        ApiResultTagsContributor.markResult("timeout");
+        return new ApiErrors(new BusinessException(ex.getMessage()));
+    }
+
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(TaskRejectedException.class)
+    public ApiErrors handleTaskRejectedException(TaskRejectedException ex) {
+        ApiResultTagsContributor.markResult("rejected");
+        return new ApiErrors(new BusinessException("Servidor sobrecarregado, tente novamente."));
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(BusinessException.class)
+    public ApiErrors handleBussinessException(BusinessException ex) {
+        ApiResultTagsContributor.markResult(BookService.DUPLICATE_ISBN.equals(ex.getMessage())
+                ? "duplicate_isbn" : "business_error");
+        return new ApiErrors(ex);
+    }
+}
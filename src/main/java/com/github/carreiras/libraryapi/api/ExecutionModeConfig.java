@@ -0,0 +1,100 @@
+package com.github.carreiras.libraryapi.api;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo de execução das requisições, escolhido por {@code library.execution.mode}:
+ * <ul>
+ *     <li>{@code platform} (padrão): pool fixo de threads do Tomcat ({@code server.tomcat.threads.*});</li>
+ *     <li>{@code async}: as consultas por id ({@link com.github.carreiras.libraryapi.api.resource.AsyncBookLookupController})
+ *     e o processamento assíncrono rodam num pool limitado ({@code library.execution.async.*}), liberando a
+ *     thread do Tomcat enquanto a base responde; funciona em qualquer JDK suportado;</li>
+ *     <li>{@code virtual}: uma virtual thread por requisição e por processamento assíncrono (JDK 21+).</li>
+ * </ul>
+ */
+@Configuration
+public class ExecutionModeConfig {
+
+    public static final String REQUEST_EXECUTOR = "requestExecutor";
+
+    @Configuration
+    @ConditionalOnProperty(name = "library.execution.mode", havingValue = "async")
+    public static class Async implements WebMvcConfigurer {
+
+        private final ThreadPoolTaskExecutor requestExecutor;
+
+        /**
+         * Acima de {@code pool-size} requisições em andamento as seguintes esperam na fila; com a fila
+         * cheia a requisição é recusada com 503.
+         */
+        public Async(@Value("${library.execution.async.pool-size:200}") int poolSize,
+                     @Value("${library.execution.async.queue-capacity:1000}") int queueCapacity) {
+            requestExecutor = new ThreadPoolTaskExecutor();
+            requestExecutor.setCorePoolSize(poolSize);
+            requestExecutor.setMaxPoolSize(poolSize);
+            requestExecutor.setQueueCapacity(queueCapacity);
+            requestExecutor.setThreadNamePrefix("book-request-");
+            requestExecutor.setWaitForTasksToCompleteOnShutdown(true);
+            requestExecutor.initialize();
+        }
+
+        @Bean(name = REQUEST_EXECUTOR)
+        public AsyncTaskExecutor requestExecutor() {
+            return requestExecutor;
+        }
+
+        @Override
+        public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+            configurer.setTaskExecutor(requestExecutor);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "library.execution.mode", havingValue = "virtual")
+    public static class Virtual implements WebMvcConfigurer {
+
+        private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+        @Bean
+        public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+            return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+        }
+
+        @Override
+        public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+        }
+
+        /**
+         * Chamado depois que o Tomcat parou de aceitar requisições; as em andamento terminam normalmente.
+         */
+        @PreDestroy
+        public void shutdown() {
+            virtualThreadExecutor.shutdown();
+        }
+
+        /**
+         * O projeto compila para Java 11; a fábrica de virtual threads é obtida por reflexão.
+         */
+        private static ExecutorService newVirtualThreadPerTaskExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("library.execution.mode=virtual requer JDK 21 ou superior; use async.", ex);
+            }
+        }
+    }
+}
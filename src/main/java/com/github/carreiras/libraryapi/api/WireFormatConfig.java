@@ -0,0 +1,37 @@
+package com.github.carreiras.libraryapi.api;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Formatos binários ({@code application/cbor} e {@code application/x-jackson-smile}) escolhidos por
+ * {@code Accept}/{@code Content-Type}, com a mesma configuração do Jackson usada no JSON. Os
+ * conversores ficam depois do JSON, que continua sendo o formato para {@code Accept: *}{@code /*}.
+ */
+@Profile("!reactive")
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public WireFormatConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build()));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.factory(new SmileFactory()).build()));
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.carreiras.libraryapi.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookChangeDTO {
+
+    private Long offset;
+
+    /**
+     * Shard do offset, apenas com shards.
+     */
+    private Integer shard;
+
+    private String type;
+
+    private Long id;
+
+    private String title;
+
+    private String author;
+
+    private String isbn;
+
+    private Long version;
+
+    private Instant changedAt;
+}
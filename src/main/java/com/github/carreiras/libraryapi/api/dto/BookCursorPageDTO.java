@@ -0,0 +1,19 @@
+package com.github.carreiras.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookCursorPageDTO {
+
+    private List<BookDTO> content;
+
+    private String next;
+}
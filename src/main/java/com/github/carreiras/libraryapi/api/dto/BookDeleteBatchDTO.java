@@ -0,0 +1,15 @@
+package com.github.carreiras.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookDeleteBatchDTO {
+
+    private int deleted;
+}
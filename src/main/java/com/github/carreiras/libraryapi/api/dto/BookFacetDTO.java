@@ -0,0 +1,17 @@
+package com.github.carreiras.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacetDTO {
+
+    private String value;
+
+    private long count;
+}
@@ -0,0 +1,24 @@
+package com.github.carreiras.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPatchDTO {
+
+    @NotNull
+    private Long id;
+
+    private Long version;
+
+    private String title;
+
+    private String author;
+}
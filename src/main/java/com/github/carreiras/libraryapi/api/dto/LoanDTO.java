@@ -0,0 +1,29 @@
+package com.github.carreiras.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDTO {
+
+    private Long id;
+
+    @NotEmpty
+    private String isbn;
+
+    @NotEmpty
+    @Size(max = 100)
+    private String customer;
+
+    private Boolean returned;
+
+    private BookDTO book;
+}
@@ -2,6 +2,8 @@ package com.github.carreiras.libraryapi.api.exception;
 
 import org.springframework.validation.BindingResult;
 
+import javax.validation.ConstraintViolationException;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -15,6 +17,11 @@ public class ApiErrors {
         bindingResult.getAllErrors().forEach(error -> this.errors.add(error.getDefaultMessage()));
     }
 
+    public ApiErrors(ConstraintViolationException ex) {
+        this.errors = new ArrayList<>();
+        ex.getConstraintViolations().forEach(violation -> this.errors.add(violation.getMessage()));
+    }
+
     public ApiErrors(BusinessException ex) {
         this.errors = Arrays.asList(ex.getMessage());
     }
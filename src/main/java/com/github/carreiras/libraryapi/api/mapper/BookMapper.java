@@ -0,0 +1,11 @@
+package com.github.carreiras.libraryapi.api.mapper;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.model.entity.Book;
+
+public interface BookMapper {
+
+    Book toEntity(BookDTO bookDTO);
+
+    BookDTO toDto(Book book);
+}
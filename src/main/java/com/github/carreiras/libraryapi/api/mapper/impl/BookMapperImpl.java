@@ -0,0 +1,31 @@
+package com.github.carreiras.libraryapi.api.mapper.impl;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
+import com.github.carreiras.libraryapi.model.entity.Book;
+
+/**
+ * Copia os campos diretamente, sem reflexão, no caminho de cada requisição.
+ */
+public class BookMapperImpl implements BookMapper {
+
+    @Override
+    public Book toEntity(BookDTO bookDTO) {
+        return Book.builder()
+                .id(bookDTO.getId())
+                .title(bookDTO.getTitle())
+                .author(bookDTO.getAuthor())
+                .isbn(bookDTO.getIsbn())
+                .build();
+    }
+
+    @Override
+    public BookDTO toDto(Book book) {
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .build();
+    }
+}
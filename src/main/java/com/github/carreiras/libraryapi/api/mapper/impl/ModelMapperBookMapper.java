@@ -0,0 +1,28 @@
+package com.github.carreiras.libraryapi.api.mapper.impl;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import org.modelmapper.ModelMapper;
+
+/**
+ * Mantém o mapeamento reflexivo do ModelMapper, habilitado com {@code library.mapper=modelmapper}.
+ */
+public class ModelMapperBookMapper implements BookMapper {
+
+    private ModelMapper modelMapper;
+
+    public ModelMapperBookMapper(ModelMapper modelMapper) {
+        this.modelMapper = modelMapper;
+    }
+
+    @Override
+    public Book toEntity(BookDTO bookDTO) {
+        return modelMapper.map(bookDTO, Book.class);
+    }
+
+    @Override
+    public BookDTO toDto(Book book) {
+        return modelMapper.map(book, BookDTO.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.api.ExecutionModeConfig;
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.BookService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Consulta por id no modo {@code async}: a thread do Tomcat é devolvida logo após despachar a
+ * consulta para o pool limitado de {@link ExecutionModeConfig.Async}.
+ */
+@Profile("!reactive")
+@ConditionalOnProperty(name = "library.execution.mode", havingValue = "async")
+@RestController
+@RequestMapping("/api/books")
+public class AsyncBookLookupController {
+
+    private BookService service;
+    private BookMapper bookMapper;
+    private AsyncTaskExecutor executor;
+
+    public AsyncBookLookupController(BookService service, BookMapper mapper,
+                                     @Qualifier(ExecutionModeConfig.REQUEST_EXECUTOR) AsyncTaskExecutor executor) {
+        this.service = service;
+        this.bookMapper = mapper;
+        this.executor = executor;
+    }
+
+    /**
+     * Mesmo contrato de {@link BookLookupController#findById}: ETag da versão e 304 sem corpo quando
+     * o {@code If-None-Match} coincide.
+     */
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<BookDTO>> findById(
+            @PathVariable Long id, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return CompletableFuture.supplyAsync(() -> {
+            Book book = service.findById(id).orElseThrow(() -> new ResponseStatusException((HttpStatus.NOT_FOUND)));
+            String etag = BookController.etag(book);
+            if (notModified(ifNoneMatch, etag))
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<BookDTO>build();
+            return ResponseEntity.ok().eTag(etag).body(bookMapper.toDto(book));
+        }, executor);
+    }
+
+    private static boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.api.dto.BookChangeDTO;
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import com.github.carreiras.libraryapi.service.BookChangeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Stream Server-Sent Events das alterações de livros, a partir do offset de {@code since} ou do
+ * {@code Last-Event-ID} de uma reconexão. Cada assinante tem uma thread que consulta o outbox a cada
+ * {@code poll-interval} e envia as alterações em lotes de até {@code batch-size}; o envio bloqueia
+ * enquanto o cliente não consome, o que também suspende as consultas. A conexão é encerrada após
+ * {@code max-duration}, e o cliente retoma do último id recebido.
+ * <p>
+ * Com shards, o offset tem uma posição por shard separada por ponto ({@code 12.0.7}), e o id de cada
+ * evento é o offset completo depois dele.
+ */
+@Profile("!reactive")
+@RestController
+@RequestMapping("/api/books/changes")
+public class BookChangeController {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final String INVALID_OFFSET = "Offset inválido.";
+
+    private BookChangeService service;
+    private int batchSize;
+    private Duration pollInterval;
+    private Duration heartbeat;
+    private Duration maxDuration;
+    private Semaphore subscribers;
+    private ExecutorService executor;
+
+    public BookChangeController(BookChangeService service,
+                                @Value("${library.books.changes.batch-size:500}") int batchSize,
+                                @Value("${library.books.changes.poll-interval:500ms}") Duration pollInterval,
+                                @Value("${library.books.changes.heartbeat:15s}") Duration heartbeat,
+                                @Value("${library.books.changes.max-duration:10m}") Duration maxDuration,
+                                @Value("${library.books.changes.max-subscribers:64}") int maxSubscribers) {
+        this.service = service;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.heartbeat = heartbeat;
+        this.maxDuration = maxDuration;
+        this.subscribers = new Semaphore(maxSubscribers);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "book-changes-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Responde 410 se alterações posteriores ao offset já saíram da retenção (o cliente deve recarregar
+     * a listagem e seguir do offset atual) e 503 com {@code max-subscribers} conexões abertas.
+     */
+    @GetMapping
+    public ResponseEntity<SseEmitter> changes(@RequestParam(defaultValue = "0") String since,
+                                              @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        long[] offsets = offsets(lastEventId != null ? lastEventId : since);
+        if (service.isExpired(offsets))
+            throw new ResponseStatusException(HttpStatus.GONE);
+        if (!subscribers.tryAcquire())
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+
+        SseEmitter emitter = new SseEmitter(maxDuration.plus(heartbeat).toMillis());
+        try {
+            executor.execute(() -> stream(emitter, offsets));
+        } catch (RuntimeException ex) {
+            subscribers.release();
+            throw ex;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(emitter);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void stream(SseEmitter emitter, long[] offsets) {
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(ex -> closed.set(true));
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        long lastWrite = System.nanoTime();
+        try {
+            emitter.send(SseEmitter.event().reconnectTime(pollInterval.toMillis()));
+            while (!closed.get() && System.nanoTime() < deadline) {
+                List<BookChange> batch = service.findAfter(offsets, batchSize);
+                for (BookChange change : batch) {
+                    offsets[change.getShard()] = change.getId();
+                    emitter.send(SseEmitter.event()
+                            .id(offset(offsets))
+                            .name(change.getType().name().toLowerCase())
+                            .data(dto(change, offsets.length > 1), MediaType.APPLICATION_JSON));
+                }
+                if (!batch.isEmpty()) {
+                    lastWrite = System.nanoTime();
+                    if (batch.size() == batchSize)
+                        continue;
+                } else if (System.nanoTime() - lastWrite >= heartbeat.toNanos()) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                    lastWrite = System.nanoTime();
+                }
+                Thread.sleep(pollInterval.toMillis());
+            }
+            emitter.complete();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (IOException | RuntimeException ex) {
+            emitter.completeWithError(ex);
+        } finally {
+            subscribers.release();
+        }
+    }
+
+    /**
+     * Sem shards o offset é um número; {@code 0} vale como início em todos os shards.
+     */
+    private long[] offsets(String offset) {
+        long[] offsets = new long[service.shardCount()];
+        if ("0".equals(offset))
+            return offsets;
+        String[] positions = offset.split("\\.");
+        if (positions.length != offsets.length)
+            throw new BusinessException(INVALID_OFFSET);
+        try {
+            for (int shard = 0; shard < offsets.length; shard++)
+                offsets[shard] = Long.parseLong(positions[shard]);
+        } catch (NumberFormatException ex) {
+            throw new BusinessException(INVALID_OFFSET);
+        }
+        if (Arrays.stream(offsets).anyMatch(position -> position < 0))
+            throw new BusinessException(INVALID_OFFSET);
+        return offsets;
+    }
+
+    private static String offset(long[] offsets) {
+        return Arrays.stream(offsets).mapToObj(String::valueOf).collect(Collectors.joining("."));
+    }
+
+    private static BookChangeDTO dto(BookChange change, boolean sharded) {
+        return BookChangeDTO.builder()
+                .offset(change.getId())
+                .shard(sharded ? change.getShard() : null)
+                .type(change.getType().name().toLowerCase())
+                .id(change.getBookId())
+                .title(change.getTitle())
+                .author(change.getAuthor())
+                .isbn(change.getIsbn())
+                .version(change.getVersion())
+                .changedAt(change.getChangedAt())
+                .build();
+    }
+}
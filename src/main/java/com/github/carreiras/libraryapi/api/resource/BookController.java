@@ -1,91 +1,319 @@
 package com.github.carreiras.libraryapi.api.resource;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.carreiras.libraryapi.api.dto.BookBatchDTO;
+import com.github.carreiras.libraryapi.api.dto.BookCursorPageDTO;
 import com.github.carreiras.libraryapi.api.dto.BookDTO;
-import com.github.carreiras.libraryapi.api.exception.ApiErrors;
+import com.github.carreiras.libraryapi.api.dto.BookDeleteBatchDTO;
+import com.github.carreiras.libraryapi.api.dto.BookFacetDTO;
+import com.github.carreiras.libraryapi.api.dto.BookPatchBatchDTO;
+import com.github.carreiras.libraryapi.api.dto.BookPatchDTO;
 import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
 import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.repository.BookCursor;
 import com.github.carreiras.libraryapi.service.BookService;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.validation.BindingResult;
-import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Profile("!reactive")
 @RestController
+@Validated
 @RequestMapping("/api/books")
 public class BookController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    private static final int MAX_CURSOR_SIZE = 1000;
+
     private BookService service;
-    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+    private ObjectMapper objectMapper;
+    private boolean exactCount;
 
-    public BookController(BookService service, ModelMapper mapper) {
+    public BookController(BookService service, BookMapper mapper, ObjectMapper objectMapper,
+                          @Value("${library.books.exact-count:true}") boolean exactCount) {
         this.service = service;
-        this.modelMapper = mapper;
+        this.bookMapper = mapper;
+        this.objectMapper = objectMapper;
+        this.exactCount = exactCount;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public BookDTO save(@RequestBody @Valid BookDTO bookDTO) {
-        Book book = modelMapper.map(bookDTO, Book.class);
+        Book book = bookMapper.toEntity(bookDTO);
         book = service.save(book);
-        return modelMapper.map(book, BookDTO.class);
+        return bookMapper.toDto(book);
     }
 
-    @GetMapping("/{id}")
-    public BookDTO findById(@PathVariable Long id) {
-        return service
-                .findById(id)
-                .map(book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow(() -> new ResponseStatusException((HttpStatus.NOT_FOUND)));
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BookBatchDTO saveAll(@RequestBody List<@Valid BookDTO> bookDTOs) {
+        List<Book> books = bookDTOs.stream()
+                .map(dto -> bookMapper.toEntity(dto))
+                .collect(Collectors.toList());
+        List<BookDTO> created = service.saveAll(books)
+                .stream()
+                .map(book -> bookMapper.toDto(book))
+                .collect(Collectors.toList());
+        Set<String> createdIsbns = created.stream().map(BookDTO::getIsbn).collect(Collectors.toCollection(HashSet::new));
+        List<String> duplicatedIsbns = bookDTOs.stream()
+                .map(BookDTO::getIsbn)
+                .filter(isbn -> !createdIsbns.remove(isbn))
+                .collect(Collectors.toList());
+        return new BookBatchDTO(created, duplicatedIsbns);
     }
 
+    /**
+     * Remove com um único DELETE; sem linha afetada responde 412 se o {@code If-Match} não coincidir
+     * com a versão do livro e 404 se ele não existir.
+     */
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void delete(@PathVariable Long id) {
-        Book book = service.findById(id).orElseThrow(() -> new ResponseStatusException((HttpStatus.NOT_FOUND)));
-        service.delete(book);
+    public void delete(@PathVariable Long id, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = ifMatch != null ? ifMatchVersion(ifMatch) : null;
+        if (!service.deleteById(id, version))
+            throw notChanged(id, version);
     }
 
+    /**
+     * Remove os livros dos ids do corpo e/ou que atendem ao filtro, em DELETEs por lotes.
+     */
+    @DeleteMapping
+    public BookDeleteBatchDTO deleteAll(@RequestBody(required = false) List<Long> ids, BookDTO bookDTO) {
+        Book filter = bookMapper.toEntity(bookDTO);
+        boolean filtered = filter.getTitle() != null || filter.getAuthor() != null || filter.getIsbn() != null;
+        if (ids != null && ids.isEmpty())
+            ids = null;
+        if (ids == null && !filtered)
+            throw new BusinessException("Informe os ids ou um filtro para remover.");
+        return new BookDeleteBatchDTO(service.deleteAll(ids, filter));
+    }
+
+    /**
+     * Com {@code If-Match} divergente da versão atual responde 412; a versão também é conferida
+     * pelo {@code @Version} no UPDATE, o que cobre alterações concorrentes. O livro do cache é
+     * compartilhado entre as requisições, então a alteração é feita numa cópia.
+     */
     @PutMapping("/{id}")
-    public BookDTO update(@PathVariable Long id, BookDTO bookDTO) {
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, BookDTO bookDTO,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         return service.findById(id)
-                .map(book -> {
-                    book.setAuthor(bookDTO.getAuthor());
-                    book.setTitle(bookDTO.getTitle());
-                    book = service.update(book);
-                    return modelMapper.map(book, BookDTO.class);
+                .map(current -> {
+                    checkIfMatch(ifMatch, current);
+                    Book book = service.update(Book.builder()
+                            .id(current.getId())
+                            .title(bookDTO.getTitle())
+                            .author(bookDTO.getAuthor())
+                            .isbn(current.getIsbn())
+                            .version(current.getVersion())
+                            .build());
+                    return ResponseEntity.ok().eTag(etag(book)).body(bookMapper.toDto(book));
                 }).orElseThrow(() -> new ResponseStatusException((HttpStatus.NOT_FOUND)));
     }
 
+    /**
+     * Atualização parcial em um único UPDATE, sem carregar o livro. A versão vem do {@code If-Match}
+     * (ou do corpo); sem linha afetada responde 412 se o livro existir e 404 caso contrário.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patch(@PathVariable Long id, @RequestBody BookPatchDTO patchDTO,
+                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = ifMatch != null ? ifMatchVersion(ifMatch) : patchDTO.getVersion();
+        Book changes = toChanges(id, version, patchDTO);
+        if (!service.patch(changes))
+            throw notChanged(id, version);
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent();
+        if (version != null)
+            response.eTag("\"" + (version + 1) + "\"");
+        return response.build();
+    }
+
+    @PatchMapping
+    public BookPatchBatchDTO patchAll(@RequestBody List<@Valid BookPatchDTO> patchDTOs) {
+        List<Book> changes = patchDTOs.stream()
+                .map(dto -> toChanges(dto.getId(), dto.getVersion(), dto))
+                .collect(Collectors.toList());
+        List<Long> updated = service.patchAll(changes);
+        Set<Long> updatedIds = new HashSet<>(updated);
+        List<Long> notUpdated = changes.stream()
+                .map(Book::getId)
+                .filter(bookId -> !updatedIds.contains(bookId))
+                .collect(Collectors.toList());
+        return new BookPatchBatchDTO(updated, notUpdated);
+    }
+
     @GetMapping
-    public Page<BookDTO> find(BookDTO bookDTO, Pageable pageRequest) {
-        Book filter = modelMapper.map(bookDTO, Book.class);
+    public Slice<BookDTO> find(BookDTO bookDTO, Pageable pageRequest, @RequestParam(required = false) Boolean count) {
+        Book filter = bookMapper.toEntity(bookDTO);
+        if (count == null ? !exactCount : !count) {
+            Slice<Book> result = service.findSlice(filter, pageRequest);
+            return result.map(entity -> bookMapper.toDto(entity));
+        }
         Page<Book> result = service.find(filter, pageRequest);
         List<BookDTO> list = result.getContent()
                 .stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(entity -> bookMapper.toDto(entity))
                 .collect(Collectors.toList());
         return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
     }
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ApiErrors handleValidationException(MethodArgumentNotValidException ex) {
-        BindingResult bindingResult = ex.getBindingResult();
-        return new ApiErrors(bindingResult);
+    @GetMapping(params = "after")
+    public BookCursorPageDTO findAfter(BookDTO bookDTO,
+                                       @RequestParam String after,
+                                       @RequestParam(defaultValue = "id") String sort,
+                                       @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_CURSOR_SIZE)
+            throw new BusinessException("Tamanho de página inválido.");
+        BookCursor cursor;
+        try {
+            cursor = after.isEmpty() ? BookCursor.first(sort) : BookCursor.decode(after);
+        } catch (IllegalArgumentException ex) {
+            throw new BusinessException("Cursor inválido.");
+        }
+        Slice<Book> result = service.findAfter(bookMapper.toEntity(bookDTO), cursor, size);
+        List<BookDTO> list = result.getContent()
+                .stream()
+                .map(entity -> bookMapper.toDto(entity))
+                .collect(Collectors.toList());
+        String next = result.hasNext()
+                ? BookCursor.after(cursor.getSort(), result.getContent().get(result.getNumberOfElements() - 1)).encode()
+                : null;
+        return new BookCursorPageDTO(list, next);
+    }
+
+    @GetMapping("/search")
+    public Page<BookDTO> search(@RequestParam("q") String query, Pageable pageRequest) {
+        Page<Book> result = service.search(query, pageRequest);
+        List<BookDTO> list = result.getContent()
+                .stream()
+                .map(entity -> bookMapper.toDto(entity))
+                .collect(Collectors.toList());
+        return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
+    }
+
+    @GetMapping("/facets")
+    public List<BookFacetDTO> facets(@RequestParam String field,
+                                     @RequestParam(required = false) String prefix,
+                                     @RequestParam(defaultValue = "10") int size) {
+        if (size < 1)
+            throw new BusinessException("Quantidade de valores inválida.");
+        return service.facets(field, prefix, size).entrySet()
+                .stream()
+                .map(count -> new BookFacetDTO(count.getKey(), count.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportNdjson(BookDTO bookDTO) {
+        return export(bookDTO, NDJSON, null, dto -> {
+            try {
+                return objectMapper.writeValueAsString(dto);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportCsv(BookDTO bookDTO) {
+        return export(bookDTO, CSV, "id,title,author,isbn", dto -> String.join(",",
+                String.valueOf(dto.getId()), csv(dto.getTitle()), csv(dto.getAuthor()), csv(dto.getIsbn())));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(BookDTO bookDTO, MediaType mediaType, String header, Function<BookDTO, String> line) {
+        Book filter = bookMapper.toEntity(bookDTO);
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (header != null)
+                writer.write(header + "\n");
+            service.export(filter, book -> {
+                try {
+                    writer.write(line.apply(bookMapper.toDto(book)) + "\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(mediaType).body(body);
+    }
+
+    static String etag(Book book) {
+        return "\"" + (book.getVersion() == null ? 0 : book.getVersion()) + "\"";
+    }
+
+    private ResponseStatusException notChanged(Long id, Long version) {
+        if (version != null && service.findById(id).isPresent())
+            return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        return new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+
+    private static Book toChanges(Long id, Long version, BookPatchDTO patchDTO) {
+        if (patchDTO.getTitle() == null && patchDTO.getAuthor() == null)
+            throw new BusinessException("Informe o título ou o autor a atualizar.");
+        if ("".equals(patchDTO.getTitle()) || "".equals(patchDTO.getAuthor()))
+            throw new BusinessException("Título e autor não podem ser vazios.");
+        return Book.builder().id(id).version(version).title(patchDTO.getTitle()).author(patchDTO.getAuthor()).build();
+    }
+
+    /**
+     * Versão de um {@code If-Match} com um único ETag forte; {@code *} aceita qualquer versão.
+     */
+    private static Long ifMatchVersion(String ifMatch) {
+        String etag = ifMatch.trim();
+        if (etag.equals("*"))
+            return null;
+        if (etag.length() < 2 || !etag.startsWith("\"") || !etag.endsWith("\""))
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        try {
+            return Long.valueOf(etag.substring(1, etag.length() - 1));
+        } catch (NumberFormatException ex) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+    }
+
+    static void checkIfMatch(String ifMatch, Book book) {
+        if (ifMatch == null || ifMatch.trim().equals("*"))
+            return;
+        String etag = etag(book);
+        for (String candidate : ifMatch.split(","))
+            if (candidate.trim().equals(etag))
+                return;
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
     }
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    @ExceptionHandler(BusinessException.class)
-    public ApiErrors handleBussinessException(BusinessException ex) {
-        return new ApiErrors(ex);
+    private static String csv(String value) {
+        if (value == null)
+            return "";
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r"))
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        return value;
     }
 }
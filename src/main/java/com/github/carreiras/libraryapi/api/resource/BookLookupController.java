@@ -0,0 +1,48 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.BookService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Consulta por id na thread da requisição; no modo {@code async} ela é atendida por
+ * {@link AsyncBookLookupController}.
+ */
+@Profile("!reactive")
+@ConditionalOnExpression("'${library.execution.mode:platform}' != 'async'")
+@RestController
+@RequestMapping("/api/books")
+public class BookLookupController {
+
+    private BookService service;
+    private BookMapper bookMapper;
+
+    public BookLookupController(BookService service, BookMapper mapper) {
+        this.service = service;
+        this.bookMapper = mapper;
+    }
+
+    /**
+     * O ETag vem apenas da versão do livro: um {@code If-None-Match} atendido responde 304 sem
+     * mapear nem serializar o corpo.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<BookDTO> findById(@PathVariable Long id, WebRequest request) {
+        Book book = service.findById(id).orElseThrow(() -> new ResponseStatusException((HttpStatus.NOT_FOUND)));
+        String etag = BookController.etag(book);
+        if (request.checkNotModified(etag))
+            return null;
+        return ResponseEntity.ok().eTag(etag).body(bookMapper.toDto(book));
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.api.dto.LoanDTO;
+import com.github.carreiras.libraryapi.api.dto.ReturnedLoanDTO;
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import com.github.carreiras.libraryapi.service.BookService;
+import com.github.carreiras.libraryapi.service.LoanService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.validation.Valid;
+import java.time.LocalDate;
+
+@Profile("!reactive")
+@RestController
+@RequestMapping("/api/loans")
+public class LoanController {
+
+    private LoanService service;
+    private BookService bookService;
+    private BookMapper bookMapper;
+
+    public LoanController(LoanService service, BookService bookService, BookMapper bookMapper) {
+        this.service = service;
+        this.bookService = bookService;
+        this.bookMapper = bookMapper;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Long create(@RequestBody @Valid LoanDTO loanDTO) {
+        Book book = bookService
+                .getBookByIsbn(loanDTO.getIsbn())
+                .orElseThrow(() -> new BusinessException("Livro não encontrado para o isbn informado."));
+        Loan loan = Loan.builder()
+                .book(book)
+                .customer(loanDTO.getCustomer())
+                .loanDate(LocalDate.now())
+                .build();
+        return service.save(loan).getId();
+    }
+
+    @PatchMapping("/{id}")
+    public LoanDTO returnBook(@PathVariable Long id, @RequestBody @Valid ReturnedLoanDTO returnedLoanDTO) {
+        Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        loan.setReturned(returnedLoanDTO.getReturned());
+        return toDto(service.update(loan));
+    }
+
+    @GetMapping
+    public Page<LoanDTO> find(@RequestParam(required = false) String isbn,
+                              @RequestParam(required = false) String customer,
+                              Pageable pageRequest) {
+        return service.find(isbn, customer, pageRequest).map(this::toDto);
+    }
+
+    private LoanDTO toDto(Loan loan) {
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .isbn(loan.getBook().getIsbn())
+                .customer(loan.getCustomer())
+                .returned(loan.getReturned())
+                .book(bookMapper.toDto(loan.getBook()))
+                .build();
+    }
+}
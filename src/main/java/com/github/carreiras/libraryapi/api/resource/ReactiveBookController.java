@@ -0,0 +1,88 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.api.mapper.BookMapper;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.ReactiveBookService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * Mesmas rotas e payloads do {@link BookController}, servidas pelo WebFlux no profile {@code reactive}.
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/books")
+public class ReactiveBookController {
+
+    private ReactiveBookService service;
+    private BookMapper bookMapper;
+
+    public ReactiveBookController(ReactiveBookService service, BookMapper mapper) {
+        this.service = service;
+        this.bookMapper = mapper;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookDTO> save(@RequestBody @Valid BookDTO bookDTO) {
+        return service.save(bookMapper.toEntity(bookDTO)).map(bookMapper::toDto);
+    }
+
+    /**
+     * O ETag vem da versão do livro, como em {@link BookLookupController#findById}.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<BookDTO>> findById(@PathVariable Long id) {
+        return service
+                .findById(id)
+                .map(book -> ResponseEntity.ok().eTag(BookController.etag(book)).body(bookMapper.toDto(book)))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable Long id) {
+        return service.deleteById(id)
+                .flatMap(deleted -> deleted
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * Mesmo contrato de {@link BookController#update}: título e autor vêm dos parâmetros, um
+     * {@code If-Match} divergente responde 412 e a versão lida é conferida no UPDATE.
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<BookDTO>> update(@PathVariable Long id, BookDTO bookDTO,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return service.findById(id)
+                .flatMap(current -> {
+                    BookController.checkIfMatch(ifMatch, current);
+                    return service.update(Book.builder()
+                            .id(current.getId())
+                            .title(bookDTO.getTitle())
+                            .author(bookDTO.getAuthor())
+                            .isbn(current.getIsbn())
+                            .version(current.getVersion())
+                            .build());
+                })
+                .map(book -> ResponseEntity.ok().eTag(BookController.etag(book)).body(bookMapper.toDto(book)))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping
+    public Mono<Page<BookDTO>> find(BookDTO bookDTO, Pageable pageRequest) {
+        Book filter = bookMapper.toEntity(bookDTO);
+        return service.find(filter, pageRequest).map(page -> page.map(bookMapper::toDto));
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ativada por {@code library.datasource.replicas} (urls JDBC separadas por vírgula): o primário usa
+ * {@code spring.datasource.*} e cada réplica ganha um pool Hikari próprio com a mesma configuração,
+ * inclusive usuário e dimensionamento. {@code library.datasource.replica-selection} escolhe entre {@code round-robin} e
+ * {@code least-loaded} (menos conexões ativas e em espera).
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.replicas")
+public class DataSourceRoutingConfig implements DisposableBean {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 @Value("${library.datasource.replicas}") List<String> urls,
+                                 @Value("${library.datasource.replica-selection:round-robin}") ReplicaRoutingDataSource.Selection selection,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        meterRegistry.ifAvailable(registry -> primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        pools.add(primary);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls)
+            replicas.add(replica(primary, url.trim(), "replica-" + (replicas.size() + 1)));
+        pools.addAll(replicas);
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, selection));
+    }
+
+    /**
+     * Com a conexão presa à sessão (padrão do Spring Boot e do open-in-view), a primeira transação da
+     * requisição decidiria o banco de todas as seguintes; a conexão passa a ser devolvida a cada transação.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private static HikariDataSource replica(HikariDataSource primary, String url, String poolName) {
+        HikariConfig config = new HikariConfig();
+        primary.copyStateTo(config);
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Envia as transações somente leitura para uma das réplicas e todo o resto para o primário. A
+ * conexão é escolhida no primeiro comando, por isso o {@link javax.sql.DataSource} exposto deve
+ * ser um {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} sobre este.
+ * {@link #onPrimary(Supplier)} força o primário numa leitura (read-your-writes).
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+
+    private static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = ThreadLocal.withInitial(() -> false);
+
+    private final List<HikariDataSource> replicas;
+
+    private final Selection selection;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection) {
+        this.replicas = replicas;
+        this.selection = selection;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++)
+            targets.put(i, replicas.get(i));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static <T> T onPrimary(Supplier<T> call) {
+        if (FORCE_PRIMARY.get())
+            return call.get();
+        FORCE_PRIMARY.set(true);
+        try {
+            return call.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    public static void onPrimary(Runnable call) {
+        onPrimary(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || FORCE_PRIMARY.get() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return PRIMARY;
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (selection == Selection.ROUND_ROBIN)
+            return start;
+        int chosen = start;
+        int lowest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            int load = load(replicas.get(replica));
+            if (load < lowest) {
+                lowest = load;
+                chosen = replica;
+            }
+        }
+        return chosen;
+    }
+
+    private static int load(HikariDataSource replica) {
+        HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+}
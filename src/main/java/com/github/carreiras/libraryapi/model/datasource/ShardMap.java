@@ -0,0 +1,130 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Pools dos shards e distribuição dos livros entre eles. O isbn define um de {@link #BUCKETS} buckets,
+ * gravado nos bits baixos do id, e cada bucket pertence a um shard. A distribuição fica na tabela
+ * {@code book_shard_bucket} do shard 0; um bucket só muda de shard pelo {@link ShardRebalancer}, com o
+ * {@link #lock()} exclusivo.
+ */
+public class ShardMap implements Closeable {
+
+    public static final int BUCKETS = 1024;
+
+    public static final int MAX_SHARDS = 64;
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final List<HikariDataSource> dataSources;
+
+    private final JdbcTemplate catalog;
+
+    private final AtomicIntegerArray assignment = new AtomicIntegerArray(BUCKETS);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ShardMap(List<HikariDataSource> dataSources) {
+        if (dataSources.isEmpty() || dataSources.size() > MAX_SHARDS)
+            throw new IllegalStateException("Configure de 1 a " + MAX_SHARDS + " shards.");
+        this.dataSources = dataSources;
+        this.catalog = new JdbcTemplate(dataSources.get(0));
+        load();
+    }
+
+    public static int bucketOf(String isbn) {
+        if (isbn == null)
+            return 0;
+        int hash = isbn.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, BUCKETS);
+    }
+
+    public static int bucketOf(long id) {
+        return (int) Math.floorMod(id, (long) BUCKETS);
+    }
+
+    public int shardCount() {
+        return dataSources.size();
+    }
+
+    public DataSource dataSource(int shard) {
+        return dataSources.get(shard);
+    }
+
+    /**
+     * Soma do tamanho máximo dos pools de todos os shards; o Hikari só resolve o padrão (10) quando o
+     * pool é iniciado.
+     */
+    public int connections() {
+        return dataSources.stream()
+                .mapToInt(dataSource -> dataSource.getMaximumPoolSize() > 0 ? dataSource.getMaximumPoolSize() : DEFAULT_POOL_SIZE)
+                .sum();
+    }
+
+    List<HikariDataSource> dataSources() {
+        return dataSources;
+    }
+
+    public int shardOf(int bucket) {
+        return assignment.get(bucket);
+    }
+
+    public List<Integer> buckets(int shard) {
+        List<Integer> buckets = new ArrayList<>();
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+            if (assignment.get(bucket) == shard)
+                buckets.add(bucket);
+        return buckets;
+    }
+
+    /**
+     * Compartilhado pelas operações nos shards e exclusivo durante a migração de um bucket.
+     */
+    public ReadWriteLock lock() {
+        return lock;
+    }
+
+    void assign(int bucket, int shard) {
+        catalog.update("update book_shard_bucket set shard = ? where bucket = ?", shard, bucket);
+        assignment.set(bucket, shard);
+    }
+
+    @Override
+    public void close() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    private void load() {
+        catalog.execute("create table if not exists book_shard_bucket (bucket int primary key, shard int not null)");
+        List<int[]> rows = catalog.query("select bucket, shard from book_shard_bucket",
+                (rs, row) -> new int[]{rs.getInt(1), rs.getInt(2)});
+        if (rows.isEmpty()) {
+            List<Object[]> defaults = new ArrayList<>();
+            for (int bucket = 0; bucket < BUCKETS; bucket++)
+                defaults.add(new Object[]{bucket, bucket % shardCount()});
+            catalog.batchUpdate("insert into book_shard_bucket (bucket, shard) values (?, ?)", defaults);
+            defaults.forEach(row -> assignment.set((Integer) row[0], (Integer) row[1]));
+            return;
+        }
+        for (int[] row : rows) {
+            if (row[1] >= shardCount())
+                throw new IllegalStateException("O bucket " + row[0] + " está no shard " + row[1]
+                        + ", que não está configurado em library.sharding.shards.");
+            assignment.set(row[0], row[1]);
+        }
+    }
+}
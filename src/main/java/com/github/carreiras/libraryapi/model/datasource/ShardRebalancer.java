@@ -0,0 +1,129 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+/**
+ * Endpoint {@code /actuator/shards}: GET mostra buckets e livros por shard; POST redistribui os buckets
+ * igualmente entre os {@code shards} primeiros shards (padrão: todos). Para adicionar um shard, inclua a
+ * url em {@code library.sharding.shards}, reinicie e chame o POST. Cada bucket movido tem as linhas
+ * copiadas para o novo shard, a distribuição atualizada e as linhas removidas do shard antigo, com as
+ * operações desta instância suspensas pelo {@link ShardMap#lock()}.
+ */
+@Endpoint(id = "shards")
+public class ShardRebalancer {
+
+    /**
+     * Tabelas com id composto pelo bucket, na ordem das chaves estrangeiras.
+     */
+    private static final List<String> TABLES = Arrays.asList("book", "loan");
+
+    private final ShardMap shardMap;
+
+    public ShardRebalancer(ShardMap shardMap) {
+        this.shardMap = shardMap;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> shards = new LinkedHashMap<>();
+        for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("buckets", shardMap.buckets(shard).size());
+            status.put("books", new JdbcTemplate(shardMap.dataSource(shard)).queryForObject("select count(*) from book", Long.class));
+            shards.put(String.valueOf(shard), status);
+        }
+        return shards;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebalance(@Nullable Integer shards) {
+        int target = shards == null ? shardMap.shardCount() : shards;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("moved", rebalance(target));
+        result.put("shards", shards());
+        return result;
+    }
+
+    /**
+     * Retorna o número de buckets movidos.
+     */
+    public int rebalance(int shards) {
+        if (shards < 1 || shards > shardMap.shardCount())
+            throw new IllegalArgumentException("O número de shards deve estar entre 1 e " + shardMap.shardCount() + ".");
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int shard = 0; shard < shardMap.shardCount(); shard++)
+            buckets.add(new ArrayList<>(shardMap.buckets(shard)));
+
+        List<Integer> surplus = new ArrayList<>();
+        for (int shard = 0; shard < buckets.size(); shard++) {
+            int quota = quota(shard, shards);
+            List<Integer> owned = buckets.get(shard);
+            while (owned.size() > quota)
+                surplus.add(owned.remove(owned.size() - 1));
+        }
+        int moved = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            while (buckets.get(shard).size() < quota(shard, shards)) {
+                int bucket = surplus.remove(surplus.size() - 1);
+                move(bucket, shard);
+                buckets.get(shard).add(bucket);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private static int quota(int shard, int shards) {
+        if (shard >= shards)
+            return 0;
+        return ShardMap.BUCKETS / shards + (shard < ShardMap.BUCKETS % shards ? 1 : 0);
+    }
+
+    private void move(int bucket, int to) {
+        Lock lock = shardMap.lock().writeLock();
+        lock.lock();
+        try {
+            int from = shardMap.shardOf(bucket);
+            JdbcTemplate source = new JdbcTemplate(shardMap.dataSource(from));
+            JdbcTemplate target = new JdbcTemplate(shardMap.dataSource(to));
+            transaction(to).executeWithoutResult(status -> TABLES.forEach(table -> copy(source, target, table, bucket)));
+            shardMap.assign(bucket, to);
+            transaction(from).executeWithoutResult(status -> {
+                for (int i = TABLES.size() - 1; i >= 0; i--)
+                    source.update("delete from " + TABLES.get(i) + " where mod(id, ?) = ?", ShardMap.BUCKETS, bucket);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void copy(JdbcTemplate source, JdbcTemplate target, String table, int bucket) {
+        List<Map<String, Object>> rows = source.queryForList("select * from " + table + " where mod(id, ?) = ?", ShardMap.BUCKETS, bucket);
+        if (rows.isEmpty())
+            return;
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "insert into " + table + " (" + String.join(", ", columns) + ") values ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        target.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .collect(Collectors.toList()));
+    }
+
+    private TransactionTemplate transaction(int shard) {
+        return new TransactionTemplate(new DataSourceTransactionManager(shardMap.dataSource(shard)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Entrega a conexão do shard definido por {@link #onShard(int, Supplier)} na thread atual, ou do shard
+ * 0 fora dele. Como em {@link ReplicaRoutingDataSource}, deve ficar atrás de um
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    public ShardRoutingDataSource(List<? extends DataSource> shards) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++)
+            targets.put(i, shards.get(i));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        afterPropertiesSet();
+    }
+
+    public static <T> T onShard(int shard, Supplier<T> call) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Shard da thread atual, ou {@code null} fora de {@link #onShard(int, Supplier)}.
+     */
+    public static Integer currentShard() {
+        return CURRENT.get();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT.get();
+    }
+}
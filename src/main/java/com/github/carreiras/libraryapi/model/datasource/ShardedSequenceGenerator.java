@@ -0,0 +1,58 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sequência comum fora dos shards. Dentro de um shard, usa a sequência do próprio shard, com um
+ * otimizador por shard, e compõe o id como {@code (valor * MAX_SHARDS + shard) * BUCKETS + bucket}: o
+ * bucket roteia o id e o shard de origem mantém os ids únicos depois que um bucket muda de shard.
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+    private final Map<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+
+    private String optimizerStrategy;
+
+    private int initialValue;
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        Integer shard = ShardRoutingDataSource.currentShard();
+        if (shard == null)
+            return super.generate(session, object);
+        Optimizer optimizer = optimizers.computeIfAbsent(shard, key -> OptimizerFactory.buildOptimizer(optimizerStrategy,
+                getIdentifierType().getReturnedClass(), getOptimizer().getIncrementSize(), initialValue));
+        long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+        return (value * ShardMap.MAX_SHARDS + shard) * ShardMap.BUCKETS + bucketOf(object);
+    }
+
+    @Override
+    protected String determineOptimizationStrategy(Properties params, int incrementSize) {
+        optimizerStrategy = super.determineOptimizationStrategy(params, incrementSize);
+        return optimizerStrategy;
+    }
+
+    @Override
+    protected int determineInitialValue(Properties params) {
+        initialValue = super.determineInitialValue(params);
+        return initialValue;
+    }
+
+    private static int bucketOf(Object entity) {
+        if (entity instanceof Book)
+            return ShardMap.bucketOf(((Book) entity).getIsbn());
+        if (entity instanceof Loan)
+            return ShardMap.bucketOf(((Loan) entity).getBook().getId());
+        throw new IllegalArgumentException("Entidade sem chave de shard: " + entity.getClass().getName());
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Ativada por {@code library.sharding.shards} (urls JDBC separadas por vírgula, o shard 0 primeiro):
+ * cada shard ganha um pool Hikari com a configuração de {@code spring.datasource.*}. Com
+ * {@code ddl-auto} {@code create} ou {@code create-drop}, o schema gerado pelo Hibernate é aplicado a
+ * todos os shards; caso contrário, cada shard deve ter o schema criado à parte.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.sharding.shards")
+public class ShardingConfig {
+
+    private final StringWriter dropScript = new StringWriter();
+
+    private final StringWriter createScript = new StringWriter();
+
+    @Bean
+    public ShardMap shardMap(DataSourceProperties properties, Environment environment,
+                             @Value("${library.sharding.shards}") List<String> urls,
+                             ObjectProvider<MeterRegistry> meterRegistry) {
+        if (environment.containsProperty("library.datasource.replicas"))
+            throw new IllegalStateException("library.sharding.shards e library.datasource.replicas não podem ser usados juntos.");
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource shard = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url.trim()).build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+            shard.setPoolName("shard-" + shards.size());
+            meterRegistry.ifAvailable(registry -> shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            shards.add(shard);
+        }
+        return new ShardMap(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardMap shardMap) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardMap.dataSources()));
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardMap shardMap) {
+        return new ShardRebalancer(shardMap);
+    }
+
+    /**
+     * Devolve a conexão a cada transação, como com réplicas, e troca a criação do schema pela geração
+     * dos scripts (com a ação de scripts definida, o Hibernate ignora o {@code ddl-auto}).
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardHibernateProperties() {
+        return properties -> {
+            properties.put(AvailableSettings.CONNECTION_HANDLING,
+                    PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+            Object ddlAuto = properties.get(AvailableSettings.HBM2DDL_AUTO);
+            if ("create".equals(ddlAuto) || "create-drop".equals(ddlAuto)) {
+                properties.put(AvailableSettings.HBM2DDL_SCRIPTS_ACTION, "drop-and-create");
+                properties.put(AvailableSettings.HBM2DDL_SCRIPTS_DROP_TARGET, dropScript);
+                properties.put(AvailableSettings.HBM2DDL_SCRIPTS_CREATE_TARGET, createScript);
+                properties.put(AvailableSettings.HBM2DDL_DELIMITER, ";");
+            }
+        };
+    }
+
+    @Bean
+    public InitializingBean shardSchemaInitializer(EntityManagerFactory entityManagerFactory, ShardMap shardMap) {
+        return () -> {
+            List<String> drops = statements(dropScript);
+            List<String> creates = statements(createScript);
+            for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+                JdbcTemplate jdbc = new JdbcTemplate(shardMap.dataSource(shard));
+                for (String drop : drops) {
+                    try {
+                        jdbc.execute(drop);
+                    } catch (DataAccessException ignored) {
+                        // objeto ainda não existe no shard
+                    }
+                }
+                creates.forEach(jdbc::execute);
+            }
+        };
+    }
+
+    private static List<String> statements(StringWriter script) {
+        return Arrays.stream(script.toString().split(";\\s*(\\R|$)"))
+                .map(String::trim)
+                .filter(statement -> !statement.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
@@ -4,20 +4,35 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
 @Data
-@Table
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn"),
+        indexes = {
+                @Index(name = "idx_book_title_id", columnList = "title, id"),
+                @Index(name = "idx_book_author_id", columnList = "author, id")
+        })
 @Entity
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
 
+    public static final String ISBN_CONSTRAINT = "uk_book_isbn";
+
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "book_seq")
+    @GenericGenerator(name = "book_seq", strategy = "com.github.carreiras.libraryapi.model.datasource.ShardedSequenceGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "book_seq"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+            })
     private Long id;
 
     @Column
@@ -28,4 +43,8 @@ public class Book {
 
     @Column
     private String isbn;
+
+    @Version
+    @Column
+    private Long version;
 }
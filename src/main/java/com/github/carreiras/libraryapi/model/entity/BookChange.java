@@ -0,0 +1,61 @@
+package com.github.carreiras.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Alteração de um livro gravada na mesma transação da alteração (outbox). O id é o offset do stream
+ * de alterações: vem de uma sequência sem cache na aplicação, para seguir a ordem de gravação mesmo
+ * com várias instâncias. Campos não alterados ou desconhecidos (como o isbn num PATCH) ficam nulos.
+ * <p>
+ * Com shards, a alteração é gravada no shard do livro, e cada shard tem a sua sequência de offsets.
+ */
+@Data
+@Table(indexes = @Index(name = "idx_book_change_changed_at", columnList = "changedAt"))
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChange {
+
+    public enum Type {CREATED, UPDATED, DELETED}
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_change_seq")
+    @SequenceGenerator(name = "book_change_seq", sequenceName = "book_change_seq", allocationSize = 1)
+    private Long id;
+
+    @Column
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    @Column
+    private Long bookId;
+
+    @Column
+    private String title;
+
+    @Column
+    private String author;
+
+    @Column
+    private String isbn;
+
+    @Column
+    private Long version;
+
+    @Column
+    private Instant changedAt;
+
+    /**
+     * Shard de onde a alteração foi lida; não é gravado.
+     */
+    @Transient
+    private Integer shard;
+}
@@ -0,0 +1,55 @@
+package com.github.carreiras.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@Table(uniqueConstraints = @UniqueConstraint(name = Loan.ACTIVE_LOAN_CONSTRAINT, columnNames = "active_book_id"))
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Loan {
+
+    public static final String ACTIVE_LOAN_CONSTRAINT = "uk_loan_active_book";
+
+    public static final String BOOK_CONSTRAINT = "fk_loan_book";
+
+    @Id
+    @Column
+    @GeneratedValue(generator = "loan_seq")
+    @GenericGenerator(name = "loan_seq", strategy = "com.github.carreiras.libraryapi.model.datasource.ShardedSequenceGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "loan_seq"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+            })
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @JoinColumn(name = "id_book", foreignKey = @ForeignKey(name = Loan.BOOK_CONSTRAINT))
+    @ManyToOne
+    private Book book;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column
+    private Boolean returned;
+
+    /**
+     * Id do livro enquanto o empréstimo está em aberto e nulo após a devolução. A restrição única
+     * sobre esta coluna garante, sem locks, no máximo um empréstimo em aberto por livro.
+     */
+    @Column(name = "active_book_id")
+    private Long activeBookId;
+}
@@ -0,0 +1,27 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+
+    List<BookChange> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    @Query("select min(c.id) from BookChange c")
+    Long findMinId();
+
+    /**
+     * Remove as alterações anteriores a {@code before}, mantendo sempre a última: o menor offset
+     * restante indica até onde o stream foi descartado.
+     */
+    @Modifying
+    @Query("delete from BookChange c where c.changedAt < :before and c.id < (select max(m.id) from BookChange m)")
+    int deleteByChangedAtBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,68 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Posição de uma listagem por keyset: o campo de ordenação, o valor desse campo e o id do último
+ * livro retornado. Um cursor sem id representa o início da listagem.
+ */
+@Getter
+@AllArgsConstructor
+public class BookCursor {
+
+    public static final List<String> SORT_FIELDS = Arrays.asList("id", "title", "author", "isbn");
+
+    private static final String SEPARATOR = "\n";
+
+    private final String sort;
+
+    private final String value;
+
+    private final Long id;
+
+    public static BookCursor first(String sort) {
+        if (!SORT_FIELDS.contains(sort))
+            throw new IllegalArgumentException("Campo de ordenação inválido: " + sort);
+        return new BookCursor(sort, null, null);
+    }
+
+    public static BookCursor after(String sort, Book book) {
+        switch (sort) {
+            case "title":
+                return new BookCursor(sort, book.getTitle(), book.getId());
+            case "author":
+                return new BookCursor(sort, book.getAuthor(), book.getId());
+            case "isbn":
+                return new BookCursor(sort, book.getIsbn(), book.getId());
+            default:
+                return new BookCursor("id", null, book.getId());
+        }
+    }
+
+    public static BookCursor decode(String token) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length < 2 || !SORT_FIELDS.contains(parts[0]))
+            throw new IllegalArgumentException("Cursor inválido: " + token);
+        try {
+            return new BookCursor(parts[0], parts.length == 3 ? parts[2] : null, Long.valueOf(parts[1]));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Cursor inválido: " + token, ex);
+        }
+    }
+
+    public String encode() {
+        String raw = sort + SEPARATOR + id + (value == null ? "" : SEPARATOR + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+}
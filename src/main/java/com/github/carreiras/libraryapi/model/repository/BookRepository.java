@@ -2,8 +2,58 @@ package com.github.carreiras.libraryapi.model.repository;
 
 import com.github.carreiras.libraryapi.model.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * Os métodos {@code findDetached*}, {@code streamAll} e os de listagem do {@link BookRepositoryCustom}
+ * projetam as colunas num {@code new Book(...)}: os livros não entram no contexto de persistência e não
+ * devem ser alterados esperando que a alteração seja gravada.
+ */
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+
+    String PROJECTION = "select new com.github.carreiras.libraryapi.model.entity.Book(b.id, b.title, b.author, b.isbn, b.version) ";
 
     boolean existsByIsbn(String isbn);
+
+    Optional<Book> findByIsbn(String isbn);
+
+    @Query(PROJECTION + "from Book b where b.id = :id")
+    Optional<Book> findDetachedById(@Param("id") Long id);
+
+    @Query(PROJECTION + "from Book b where b.id in :ids")
+    List<Book> findDetachedByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findIsbnByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select b.isbn from Book b")
+    Stream<String> streamAllIsbns();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(PROJECTION + "from Book b where " +
+            "(:title is null or lower(b.title) like lower(concat('%', :title, '%'))) and " +
+            "(:author is null or lower(b.author) like lower(concat('%', :author, '%'))) and " +
+            "(:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%'))) " +
+            "order by b.id")
+    Stream<Book> streamAll(@Param("title") String title, @Param("author") String author, @Param("isbn") String isbn);
+
+    @Modifying
+    @Query("delete from Book b where b.id = :id and (:version is null or b.version = :version)")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @Modifying
+    @Query("delete from Book b where b.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,51 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface BookRepositoryCustom {
+
+    List<Book> findAfter(Book filter, BookCursor cursor, int limit);
+
+    /**
+     * Livros cujos título, autor e isbn contêm os do filtro, ignorando maiúsculas; a contagem só é
+     * feita quando a página não basta para deduzir o total.
+     */
+    Page<Book> findPage(Book filter, Pageable pageable);
+
+    Slice<Book> findSlice(Book filter, Pageable pageable);
+
+    /**
+     * Livros cujo título ou autor contém o texto, ignorando maiúsculas.
+     */
+    Page<Book> searchPage(String text, Pageable pageable);
+
+    /**
+     * Atualiza em um único UPDATE os campos não nulos de título e autor e incrementa a versão; com
+     * versão informada, só atualiza se ela coincidir. Retorna o número de linhas afetadas.
+     */
+    int patch(Book changes);
+
+    /**
+     * Ids e isbns dos livros que atendem ao filtro e, se informados, estão entre os ids.
+     */
+    Map<Long, String> findIsbnById(Book filter, Collection<Long> ids);
+
+    /**
+     * Quantidade de livros por valor do atributo, entre os valores que começam com o prefixo (se
+     * informado), da maior para a menor contagem e limitada a {@code limit} valores quando informado.
+     */
+    Map<String, Long> countBy(String attribute, String prefix, Integer limit);
+
+    /**
+     * Grava as alterações pendentes e esvazia o contexto de persistência, para as entidades já gravadas
+     * numa inclusão em lote não continuarem em memória até o fim da transação.
+     */
+    void flushAndClear();
+}
@@ -0,0 +1,198 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> findAfter(Book filter, BookCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(projection(cb, book));
+        Path<Long> id = book.get("id");
+
+        List<Predicate> predicates = filterPredicates(cb, book, filter);
+        if ("id".equals(cursor.getSort())) {
+            if (!cursor.isFirst())
+                predicates.add(cb.greaterThan(id, cursor.getId()));
+            query.orderBy(cb.asc(id));
+        } else {
+            Path<String> key = book.get(cursor.getSort());
+            if (!cursor.isFirst())
+                predicates.add(cb.or(
+                        cb.greaterThan(key, cursor.getValue()),
+                        cb.and(cb.equal(key, cursor.getValue()), cb.greaterThan(id, cursor.getId()))));
+            query.orderBy(cb.asc(key), cb.asc(id));
+        }
+
+        query.where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Book> findPage(Book filter, Pageable pageable) {
+        return page((cb, book) -> filterPredicates(cb, book, filter).toArray(new Predicate[0]), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Book> searchPage(String text, Pageable pageable) {
+        return page((cb, book) -> new Predicate[]{cb.or(contains(cb, book, "title", text), contains(cb, book, "author", text))},
+                pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findSlice(Book filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(projection(cb, book)).where(filterPredicates(cb, book, filter).toArray(new Predicate[0]));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), book, cb));
+
+        List<Book> books = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = books.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? books.subList(0, pageable.getPageSize()) : books, pageable, hasNext);
+    }
+
+    @Override
+    public int patch(Book changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+        Root<Book> book = update.from(Book.class);
+        Path<Long> version = book.get("version");
+        if (changes.getTitle() != null)
+            update.set(book.<String>get("title"), changes.getTitle());
+        if (changes.getAuthor() != null)
+            update.set(book.<String>get("author"), changes.getAuthor());
+        update.set(version, cb.sum(version, 1L));
+
+        Predicate byId = cb.equal(book.get("id"), changes.getId());
+        update.where(changes.getVersion() == null ? byId : cb.and(byId, cb.equal(version, changes.getVersion())));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public Map<Long, String> findIsbnById(Book filter, Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+        List<Predicate> predicates = filterPredicates(cb, book, filter);
+        if (ids != null)
+            predicates.add(book.get("id").in(ids));
+        query.multiselect(book.get("id"), book.get("isbn")).where(predicates.toArray(new Predicate[0]));
+
+        Map<Long, String> isbns = new LinkedHashMap<>();
+        entityManager.createQuery(query).getResultList()
+                .forEach(tuple -> isbns.put(tuple.get(0, Long.class), tuple.get(1, String.class)));
+        return isbns;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> countBy(String attribute, String prefix, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+        Path<String> value = book.get(attribute);
+        Expression<Long> count = cb.count(book);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isNotNull(value));
+        if (prefix != null && !prefix.isEmpty())
+            predicates.add(cb.like(value, prefix.replaceAll("[\\\\%_]", "\\\\$0") + "%", '\\'));
+        query.multiselect(value, count)
+                .where(predicates.toArray(new Predicate[0]))
+                .groupBy(value)
+                .orderBy(cb.desc(count), cb.asc(value));
+
+        TypedQuery<Tuple> counts = entityManager.createQuery(query);
+        if (limit != null)
+            counts.setMaxResults(limit);
+        Map<String, Long> result = new LinkedHashMap<>();
+        counts.getResultList().forEach(tuple -> result.put(tuple.get(0, String.class), tuple.get(1, Long.class)));
+        return result;
+    }
+
+    private Page<Book> page(BiFunction<CriteriaBuilder, Root<Book>, Predicate[]> where, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(projection(cb, book)).where(where.apply(cb, book));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), book, cb));
+
+        TypedQuery<Book> page = entityManager.createQuery(query);
+        if (pageable.isPaged())
+            page.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        return PageableExecutionUtils.getPage(page.getResultList(), pageable, () -> count(where));
+    }
+
+    private long count(BiFunction<CriteriaBuilder, Root<Book>, Predicate[]> where) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(cb.count(book)).where(where.apply(cb, book));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Mesmo construtor de {@link BookRepository#PROJECTION}: livros fora do contexto de persistência.
+     */
+    private static CompoundSelection<Book> projection(CriteriaBuilder cb, Root<Book> book) {
+        return cb.construct(Book.class, book.get("id"), book.get("title"), book.get("author"), book.get("isbn"), book.get("version"));
+    }
+
+    private List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Book> book, Book filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        addContains(cb, book, "title", filter.getTitle(), predicates);
+        addContains(cb, book, "author", filter.getAuthor(), predicates);
+        addContains(cb, book, "isbn", filter.getIsbn(), predicates);
+        return predicates;
+    }
+
+    private void addContains(CriteriaBuilder cb, Root<Book> book, String field, String value, List<Predicate> predicates) {
+        if (value != null)
+            predicates.add(contains(cb, book, field, value));
+    }
+
+    private Predicate contains(CriteriaBuilder cb, Root<Book> book, String field, String value) {
+        String escaped = value.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return cb.like(cb.lower(book.get(field)), "%" + escaped + "%", '\\');
+    }
+
+    @Override
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
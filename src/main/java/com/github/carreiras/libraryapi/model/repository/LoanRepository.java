@@ -0,0 +1,21 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface LoanRepository extends JpaRepository<Loan, Long> {
+
+    boolean existsByActiveBookId(Long bookId);
+
+    @Query(value = "select l from Loan l join l.book b where " +
+            "(:isbn is null or b.isbn = :isbn) and " +
+            "(:customer is null or lower(l.customer) = lower(:customer))",
+            countQuery = "select count(l) from Loan l join l.book b where " +
+                    "(:isbn is null or b.isbn = :isbn) and " +
+                    "(:customer is null or lower(l.customer) = lower(:customer))")
+    Page<Loan> findByIsbnAndCustomer(@Param("isbn") String isbn, @Param("customer") String customer, Pageable pageable);
+}
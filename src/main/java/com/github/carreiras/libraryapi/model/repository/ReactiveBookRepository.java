@@ -0,0 +1,170 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import io.r2dbc.spi.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Acesso não bloqueante à tabela {@code book} via R2DBC, usado pelo modo {@code reactive}.
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveBookRepository {
+
+    private static final String COLUMNS = "id, title, author, isbn, version";
+
+    private DatabaseClient databaseClient;
+
+    public ReactiveBookRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Boolean> existsByIsbn(String isbn) {
+        return databaseClient.sql("SELECT COUNT(*) FROM book WHERE isbn = :isbn")
+                .bind("isbn", isbn)
+                .map(row -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    public Mono<Book> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM book WHERE id = :id")
+                .bind("id", id)
+                .map(this::toBook)
+                .one();
+    }
+
+    /**
+     * Cada valor de {@code book_seq} reserva, para o otimizador pooled do Hibernate, o bloco que
+     * termina nele; usar o próprio valor como id nunca colide com os ids gerados pelo JPA.
+     */
+    public Mono<Book> insert(Book book) {
+        return databaseClient.sql("SELECT NEXT VALUE FOR book_seq")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> databaseClient.sql("INSERT INTO book (" + COLUMNS + ") VALUES (:id, :title, :author, :isbn, 0)")
+                        .bind("id", id)
+                        .bind("title", book.getTitle())
+                        .bind("author", book.getAuthor())
+                        .bind("isbn", book.getIsbn())
+                        .then()
+                        .thenReturn(Book.builder().id(id).title(book.getTitle()).author(book.getAuthor()).isbn(book.getIsbn()).version(0L).build()));
+    }
+
+    /**
+     * Com a versão informada só altera a linha que ainda está nela, como o {@code @Version} do JPA.
+     */
+    public Mono<Integer> update(Book book) {
+        String sql = "UPDATE book SET title = :title, author = :author, isbn = :isbn, version = version + 1 WHERE id = :id"
+                + (book.getVersion() != null ? " AND version = :version" : "");
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("id", book.getId())
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("isbn", book.getIsbn());
+        if (book.getVersion() != null)
+            spec = spec.bind("version", book.getVersion());
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Integer> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM book WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Grava a alteração no outbox ({@link BookChange}); o offset vem da mesma sequência usada pelo JPA.
+     */
+    public Mono<Void> insertChange(BookChange change) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO book_change "
+                + "(id, type, book_id, title, author, isbn, version, changed_at) "
+                + "VALUES (NEXT VALUE FOR book_change_seq, :type, :bookId, :title, :author, :isbn, :version, :changedAt)")
+                .bind("type", change.getType().name())
+                .bind("bookId", change.getBookId())
+                .bind("changedAt", change.getChangedAt());
+        spec = bindNullable(spec, "title", change.getTitle(), String.class);
+        spec = bindNullable(spec, "author", change.getAuthor(), String.class);
+        spec = bindNullable(spec, "isbn", change.getIsbn(), String.class);
+        spec = bindNullable(spec, "version", change.getVersion(), Long.class);
+        return spec.then();
+    }
+
+    public Flux<Book> find(Book filter, Pageable pageable) {
+        Map<String, String> filters = filters(filter);
+        String sql = "SELECT " + COLUMNS + " FROM book" + where(filters) + orderBy(pageable.getSort())
+                + " LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
+        return bind(databaseClient.sql(sql), filters).map(this::toBook).all();
+    }
+
+    public Mono<Long> count(Book filter) {
+        Map<String, String> filters = filters(filter);
+        return bind(databaseClient.sql("SELECT COUNT(*) FROM book" + where(filters)), filters)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private Map<String, String> filters(Book filter) {
+        Map<String, String> filters = new LinkedHashMap<>();
+        if (filter.getTitle() != null)
+            filters.put("title", filter.getTitle());
+        if (filter.getAuthor() != null)
+            filters.put("author", filter.getAuthor());
+        if (filter.getIsbn() != null)
+            filters.put("isbn", filter.getIsbn());
+        return filters;
+    }
+
+    private String where(Map<String, String> filters) {
+        if (filters.isEmpty())
+            return "";
+        return filters.keySet().stream()
+                .map(column -> "LOWER(" + column + ") LIKE :" + column + " ESCAPE '\\'")
+                .collect(Collectors.joining(" AND ", " WHERE ", ""));
+    }
+
+    private DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, Map<String, String> filters) {
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            String escaped = filter.getValue().toLowerCase()
+                    .replace("\\", "\\\\")
+                    .replace("%", "\\%")
+                    .replace("_", "\\_");
+            spec = spec.bind(filter.getKey(), "%" + escaped + "%");
+        }
+        return spec;
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                                      T value, Class<T> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private String orderBy(Sort sort) {
+        String orders = sort.stream()
+                .filter(order -> BookCursor.SORT_FIELDS.contains(order.getProperty()))
+                .map(order -> order.getProperty() + " " + order.getDirection().name())
+                .collect(Collectors.joining(", "));
+        return orders.isEmpty() ? " ORDER BY id" : " ORDER BY " + orders + ", id";
+    }
+
+    private Book toBook(Row row) {
+        return Book.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
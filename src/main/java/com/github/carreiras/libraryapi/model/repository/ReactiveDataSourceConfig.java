@@ -0,0 +1,32 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+/**
+ * O Spring Boot não cria o DataSource JDBC quando existe um ConnectionFactory R2DBC. No profile
+ * {@code reactive} os repositórios JPA continuam em uso (índices em memória, empréstimos), então
+ * o DataSource é declarado aqui a partir de {@code spring.datasource.*}.
+ */
+@Profile("reactive")
+@Configuration
+public class ReactiveDataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().build();
+    }
+}
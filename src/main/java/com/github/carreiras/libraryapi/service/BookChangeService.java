@@ -0,0 +1,24 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+
+import java.util.List;
+
+public interface BookChangeService {
+
+    /**
+     * Número de posições do offset do stream: uma por shard, ou uma só sem shards.
+     */
+    int shardCount();
+
+    /**
+     * Verdadeiro se alterações posteriores ao offset de algum shard já foram descartadas pela retenção.
+     */
+    boolean isExpired(long[] offsets);
+
+    /**
+     * Até {@code limit} alterações posteriores aos offsets de cada shard, sem lacunas recentes, em ordem
+     * de offset dentro de cada shard e intercaladas por {@code changedAt} entre os shards.
+     */
+    List<BookChange> findAfter(long[] offsets, int limit);
+}
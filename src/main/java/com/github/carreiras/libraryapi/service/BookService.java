@@ -2,19 +2,53 @@ package com.github.carreiras.libraryapi.service;
 
 
 import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.repository.BookCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
+
+    String DUPLICATE_ISBN = "Isbn já cadastrado.";
+
     Book save(Book any);
 
+    List<Book> saveAll(List<Book> books);
+
     Book update(Book book);
 
+    boolean patch(Book changes);
+
+    List<Long> patchAll(List<Book> changes);
+
     void delete(Book book);
 
+    boolean deleteById(Long id, Long version);
+
+    int deleteAll(List<Long> ids, Book filter);
+
     Optional<Book> findById(Long id);
 
+    Optional<Book> getBookByIsbn(String isbn);
+
     Page<Book> find(Book filter, Pageable pageRequest);
+
+    Slice<Book> findSlice(Book filter, Pageable pageRequest);
+
+    Page<Book> search(String query, Pageable pageRequest);
+
+    /**
+     * Quantidade de livros por valor do campo (author ou title), limitada aos {@code size} valores com
+     * mais livros e, se informado, aos que começam com o prefixo.
+     */
+    Map<String, Long> facets(String field, String prefix, int size);
+
+    Slice<Book> findAfter(Book filter, BookCursor cursor, int size);
+
+    void export(Book filter, Consumer<Book> action);
 }
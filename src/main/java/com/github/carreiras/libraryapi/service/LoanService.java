@@ -0,0 +1,17 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+public interface LoanService {
+    Loan save(Loan loan);
+
+    Optional<Loan> getById(Long id);
+
+    Loan update(Loan loan);
+
+    Page<Loan> find(String isbn, String customer, Pageable pageRequest);
+}
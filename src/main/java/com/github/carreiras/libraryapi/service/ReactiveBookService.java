@@ -0,0 +1,18 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookService {
+    Mono<Book> save(Book book);
+
+    Mono<Book> update(Book book);
+
+    Mono<Boolean> deleteById(Long id);
+
+    Mono<Book> findById(Long id);
+
+    Mono<Page<Book>> find(Book filter, Pageable pageRequest);
+}
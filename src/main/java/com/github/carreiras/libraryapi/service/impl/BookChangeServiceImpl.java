@@ -0,0 +1,216 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import com.github.carreiras.libraryapi.model.repository.BookChangeRepository;
+import com.github.carreiras.libraryapi.service.BookChangeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox das alterações de livros. Os métodos de gravação participam da transação de quem chama, que
+ * deve ser a mesma da alteração; com shards, é a transação de {@link BookShards} no shard do livro, e o
+ * outbox de cada shard tem os seus próprios offsets. As alterações mais antigas que
+ * {@code library.books.changes.retention} são removidas periodicamente, em cada shard.
+ * <p>
+ * O {@code changedAt} é anterior ao commit. Para a regra de {@code library.books.changes.settle} não
+ * pular uma transação lenta mas ainda não confirmada, a transação que gravou no outbox é desfeita se
+ * chegar ao commit depois de {@code library.books.changes.transaction-timeout}. Esse prazo deve ser
+ * menor que o settle, e a folga cobre o próprio commit.
+ * <p>
+ * O {@link ReactiveBookServiceImpl} grava as suas alterações pelo R2DBC, com {@link #change} e a mesma
+ * regra de prazo ({@link #checkDeadline}).
+ */
+@Service
+public class BookChangeServiceImpl implements BookChangeService {
+
+    private final BookChangeRepository repository;
+
+    private final BookShards shards;
+
+    private final TransactionTemplate transaction;
+
+    private final Duration retention;
+
+    private final Duration settle;
+
+    private final Duration transactionTimeout;
+
+    private final Duration purgeInterval;
+
+    private ScheduledExecutorService purger;
+
+    public BookChangeServiceImpl(BookChangeRepository repository, BookShards shards, PlatformTransactionManager transactionManager,
+                                 @Value("${library.books.changes.retention:24h}") Duration retention,
+                                 @Value("${library.books.changes.settle:10s}") Duration settle,
+                                 @Value("${library.books.changes.transaction-timeout:5s}") Duration transactionTimeout,
+                                 @Value("${library.books.changes.purge-interval:1m}") Duration purgeInterval) {
+        if (transactionTimeout.compareTo(settle) >= 0)
+            throw new IllegalArgumentException("library.books.changes.transaction-timeout deve ser menor que library.books.changes.settle.");
+        this.repository = repository;
+        this.shards = shards;
+        this.transaction = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.settle = settle;
+        this.transactionTimeout = transactionTimeout;
+        this.purgeInterval = purgeInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "book-changes-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purge, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (purger != null)
+            purger.shutdownNow();
+    }
+
+    public void created(Collection<Book> books) {
+        record(books.stream().map(book -> change(BookChange.Type.CREATED, book)).collect(Collectors.toList()));
+    }
+
+    public void updated(Book book) {
+        record(Collections.singletonList(change(BookChange.Type.UPDATED, book)));
+    }
+
+    /**
+     * Um PATCH só conhece os campos alterados; a versão só é conhecida quando o PATCH a conferiu.
+     */
+    public void patched(Collection<Book> changes) {
+        record(changes.stream()
+                .map(patch -> change(BookChange.Type.UPDATED, Book.builder()
+                        .id(patch.getId())
+                        .title(patch.getTitle())
+                        .author(patch.getAuthor())
+                        .version(patch.getVersion() == null ? null : patch.getVersion() + 1)
+                        .build()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Ids e isbns (quando conhecidos) dos livros removidos.
+     */
+    public void deleted(Map<Long, String> books) {
+        record(books.entrySet().stream()
+                .map(book -> change(BookChange.Type.DELETED, Book.builder().id(book.getKey()).isbn(book.getValue()).build()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public int shardCount() {
+        return shards.shardCount();
+    }
+
+    @Override
+    public boolean isExpired(long[] offsets) {
+        List<Long> first = shards.fanOut(shard -> repository.findMinId());
+        for (int shard = 0; shard < offsets.length; shard++) {
+            if (offsets[shard] != 0 && first.get(shard) != null && offsets[shard] < first.get(shard) - 1)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Entrega as alterações de cada shard até a primeira lacuna de offsets: uma lacuna pode ser uma
+     * transação ainda não confirmada, com offset menor que o das já visíveis. Ela só é ignorada, como
+     * transação desfeita, quando a alteração seguinte tem mais de {@code library.books.changes.settle}.
+     * A intercalação mantém a ordem de cada shard, então o que fica além de {@code limit} é sempre o
+     * final de cada shard, entregue na consulta seguinte.
+     */
+    @Override
+    public List<BookChange> findAfter(long[] offsets, int limit) {
+        List<List<BookChange>> changes = shards.fanOut(shard -> contiguous(shard, offsets[shard], limit));
+        List<BookChange> merged = BookShards.merge(changes, Comparator.comparing(BookChange::getChangedAt)
+                .thenComparing(BookChange::getId)
+                .thenComparing(BookChange::getShard), change -> change);
+        return merged.subList(0, Math.min(limit, merged.size()));
+    }
+
+    public int purge() {
+        return shards.onEveryShard(() -> transaction.execute(status -> repository.deleteByChangedAtBefore(Instant.now().minus(retention))))
+                .stream()
+                .mapToInt(purged -> purged == null ? 0 : purged)
+                .sum();
+    }
+
+    private List<BookChange> contiguous(int shard, long offset, int limit) {
+        List<BookChange> changes = repository.findByIdGreaterThanOrderById(offset, PageRequest.of(0, limit));
+        Instant settled = Instant.now().minus(settle);
+        long previous = offset;
+        int contiguous = 0;
+        for (BookChange change : changes) {
+            if (change.getId() != previous + 1 && change.getChangedAt().isAfter(settled))
+                break;
+            change.setShard(shard);
+            previous = change.getId();
+            contiguous++;
+        }
+        return changes.subList(0, contiguous);
+    }
+
+    private void record(List<BookChange> changes) {
+        if (!changes.isEmpty()) {
+            repository.saveAll(changes);
+            expireBeforeCommit(changes.get(0).getChangedAt());
+        }
+    }
+
+    private void expireBeforeCommit(Instant changedAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                checkDeadline(changedAt);
+            }
+        });
+    }
+
+    /**
+     * Chamado logo antes do commit de uma transação que gravou no outbox em {@code changedAt}.
+     */
+    void checkDeadline(Instant changedAt) {
+        if (Duration.between(changedAt, Instant.now()).compareTo(transactionTimeout) > 0)
+            throw new TransactionTimedOutException("A transação excedeu library.books.changes.transaction-timeout.");
+    }
+
+    static BookChange change(BookChange.Type type, Book book) {
+        return BookChange.builder()
+                .type(type)
+                .bookId(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .version(book.getVersion())
+                .changedAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,321 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.model.datasource.ReplicaRoutingDataSource;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Contagens de livros por autor e por título em memória, atualizadas a cada inclusão, alteração e
+ * remoção em {@link BookServiceImpl} em vez de calculadas com GROUP BY. Como essas atualizações não
+ * acompanham o commit, a cada {@code library.books.facets.reconcile-interval} as contagens são
+ * reconstruídas a partir da tabela, mantendo o estado em memória dos livros alterados durante a
+ * leitura; o contador {@code library.books.facets.corrections} soma os valores cuja contagem mudou e
+ * {@code library.books.facets.reconcile.failures} as reconstruções que falharam, quando as contagens
+ * atuais são mantidas até a próxima. Se a primeira carga falhar, a aplicação sobe mesmo assim e as
+ * contagens seguem agrupadas na base até uma reconstrução dar certo.
+ */
+@Component
+public class BookFacets {
+
+    public static final String CORRECTIONS_COUNTER = "library.books.facets.corrections";
+
+    public static final String RECONCILE_FAILURES_COUNTER = "library.books.facets.reconcile.failures";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookFacets.class);
+
+    private static final Comparator<Map.Entry<String, Long>> ORDER = Map.Entry.<String, Long>comparingByValue().reversed()
+            .thenComparing(Map.Entry.comparingByKey());
+
+    public enum Field {
+
+        AUTHOR("author", Book::getAuthor),
+        TITLE("title", Book::getTitle);
+
+        private final String attribute;
+        private final Function<Book, String> value;
+
+        Field(String attribute, Function<Book, String> value) {
+            this.attribute = attribute;
+            this.value = value;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public static Optional<Field> of(String attribute) {
+            return Arrays.stream(values()).filter(field -> field.attribute.equals(attribute)).findFirst();
+        }
+    }
+
+    private final Map<Long, String[]> books = new HashMap<>();
+    private Map<Field, NavigableMap<String, Long>> counts = emptyCounts();
+    private Set<Long> touched;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private BookRepository bookRepository;
+
+    private BookShards shards;
+
+    private TransactionTemplate transaction;
+
+    private Counter corrections;
+
+    private Counter reconcileFailures;
+
+    private Duration reconcileInterval;
+
+    private ScheduledExecutorService reconciler;
+
+    private volatile boolean ready;
+
+    public BookFacets(BookRepository bookRepository, BookShards shards, PlatformTransactionManager transactionManager,
+                      MeterRegistry registry,
+                      @Value("${library.books.facets.reconcile-interval:10m}") Duration reconcileInterval) {
+        this.bookRepository = bookRepository;
+        this.shards = shards;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+        this.corrections = registry.counter(CORRECTIONS_COUNTER);
+        this.reconcileFailures = registry.counter(RECONCILE_FAILURES_COUNTER);
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        tryReconcile();
+        reconciler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "book-facets-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::tryReconcile,
+                reconcileInterval.toMillis(), reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reconciler != null)
+            reconciler.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Book book) {
+        String[] values = new String[Field.values().length];
+        for (Field field : Field.values())
+            values[field.ordinal()] = field.value.apply(book);
+        lock.writeLock().lock();
+        try {
+            touch(book.getId());
+            put(book.getId(), values);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atualiza apenas os campos informados (não nulos), mantendo os demais como já contados.
+     */
+    public void patch(Long id, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            touch(id);
+            String[] current = books.get(id);
+            if (current == null)
+                return;
+            String[] values = current.clone();
+            if (title != null)
+                values[Field.TITLE.ordinal()] = title;
+            if (author != null)
+                values[Field.AUTHOR.ordinal()] = author;
+            put(id, values);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            touch(id);
+            uncount(books.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Os {@code limit} valores com mais livros entre os que começam com o prefixo, da maior para a menor
+     * contagem e, no empate, em ordem alfabética. Como o LIKE da consulta usada antes da carga, o prefixo
+     * diferencia maiúsculas de minúsculas.
+     */
+    public Map<String, Long> top(Field field, String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, Long> fieldCounts = counts.get(field);
+            return top((prefix == null || prefix.isEmpty()
+                    ? fieldCounts
+                    : fieldCounts.subMap(prefix, true, prefix + Character.MAX_VALUE, false)).entrySet(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static Map<String, Long> top(Iterable<Map.Entry<String, Long>> counts, int limit) {
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(ORDER.reversed());
+        for (Map.Entry<String, Long> count : counts) {
+            top.add(new AbstractMap.SimpleImmutableEntry<>(count));
+            if (top.size() > limit)
+                top.poll();
+        }
+        return top.stream()
+                .sorted(ORDER)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (first, second) -> first, LinkedHashMap::new));
+    }
+
+    /**
+     * Lê os livros da tabela e substitui as contagens. Os livros incluídos, alterados ou removidos
+     * durante a leitura ficam como estão em memória, pois a leitura pode ter visto um estado anterior.
+     */
+    public void reconcile() {
+        lock.writeLock().lock();
+        try {
+            touched = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, String[]> scanned = new HashMap<>();
+        boolean complete = false;
+        try {
+            transaction.execute(status -> {
+                ReplicaRoutingDataSource.onPrimary(() -> shards.forEachShard(() -> {
+                    try (Stream<Book> stream = bookRepository.streamAll(null, null, null)) {
+                        stream.forEach(book -> scanned.put(book.getId(), Arrays.stream(Field.values())
+                                .map(field -> field.value.apply(book))
+                                .toArray(String[]::new)));
+                    }
+                }));
+                return null;
+            });
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (complete)
+                    replace(scanned);
+                touched = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Uma falha mantém as contagens atuais; a próxima execução tenta de novo.
+     */
+    public void tryReconcile() {
+        try {
+            reconcile();
+            ready = true;
+        } catch (RuntimeException ex) {
+            reconcileFailures.increment();
+            LOGGER.warn("Falha ao reconciliar as contagens de livros.", ex);
+        }
+    }
+
+    private void replace(Map<Long, String[]> scanned) {
+        touched.forEach(id -> {
+            String[] current = books.get(id);
+            if (current == null)
+                scanned.remove(id);
+            else
+                scanned.put(id, current);
+        });
+        Map<Field, NavigableMap<String, Long>> previous = counts;
+        books.clear();
+        counts = emptyCounts();
+        scanned.forEach(this::put);
+        if (ready)
+            corrections.increment(differences(previous, counts));
+    }
+
+    private void touch(Long id) {
+        if (touched != null)
+            touched.add(id);
+    }
+
+    private void put(Long id, String[] values) {
+        uncount(books.put(id, values));
+        for (Field field : Field.values()) {
+            String value = values[field.ordinal()];
+            if (value != null)
+                counts.get(field).merge(value, 1l, Long::sum);
+        }
+    }
+
+    private void uncount(String[] values) {
+        if (values == null)
+            return;
+        for (Field field : Field.values()) {
+            String value = values[field.ordinal()];
+            if (value != null)
+                counts.get(field).computeIfPresent(value, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private static long differences(Map<Field, NavigableMap<String, Long>> previous, Map<Field, NavigableMap<String, Long>> current) {
+        long differences = 0;
+        for (Field field : Field.values()) {
+            Set<String> values = new HashSet<>(previous.get(field).keySet());
+            values.addAll(current.get(field).keySet());
+            differences += values.stream()
+                    .filter(value -> !previous.get(field).getOrDefault(value, 0l).equals(current.get(field).getOrDefault(value, 0l)))
+                    .count();
+        }
+        return differences;
+    }
+
+    private static Map<Field, NavigableMap<String, Long>> emptyCounts() {
+        Map<Field, NavigableMap<String, Long>> counts = new EnumMap<>(Field.class);
+        for (Field field : Field.values())
+            counts.put(field, new TreeMap<>());
+        return counts;
+    }
+}
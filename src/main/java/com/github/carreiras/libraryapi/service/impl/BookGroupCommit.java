@@ -0,0 +1,233 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.BookService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit das inclusões de livros, habilitado por {@code library.books.group-commit.enabled}. As
+ * chamadas de {@link #save} entram numa fila e uma thread as grava em lotes pelo
+ * {@link BookService#saveAll}, numa transação por lote. O lote fecha com {@code max-batch} livros ou
+ * {@code window} após a chegada do primeiro: janelas maiores formam lotes maiores e aumentam a vazão ao
+ * custo da latência de cada inclusão. Cada chamada recebe o próprio livro gravado ou o próprio erro de
+ * isbn duplicado; se o lote falhar, os livros são gravados um a um para isolar o erro. Com shards o
+ * modo é ignorado, com um aviso na partida, já que o lote não seria uma transação só. As métricas
+ * {@code library.books.group-commit.batch.size} e {@code library.books.group-commit.queue.delay} medem o
+ * tamanho dos lotes e a espera de cada livro até a gravação.
+ * <p>
+ * Quem chama aguarda no máximo {@code window} mais {@code library.books.group-commit.timeout}; depois
+ * disso recebe {@link QueryTimeoutException}. Se o livro já estava num lote em gravação, ele ainda pode
+ * ser incluído.
+ */
+@Component
+public class BookGroupCommit {
+
+    public static final String BATCH_SIZE_SUMMARY = "library.books.group-commit.batch.size";
+
+    public static final String QUEUE_DELAY_TIMER = "library.books.group-commit.queue.delay";
+
+    private static final String STOPPED = "O group commit foi encerrado.";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookGroupCommit.class);
+
+    private final ObjectProvider<BookService> books;
+
+    private final boolean enabled;
+
+    private final int maxBatch;
+
+    private final Duration window;
+
+    private final Duration timeout;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private final DistributionSummary batchSize;
+
+    private final Timer queueDelay;
+
+    private volatile Thread writer;
+
+    private volatile boolean stopped;
+
+    public BookGroupCommit(ObjectProvider<BookService> books, BookShards shards, MeterRegistry registry,
+                           @Value("${library.books.group-commit.enabled:false}") boolean enabled,
+                           @Value("${library.books.group-commit.max-batch:100}") int maxBatch,
+                           @Value("${library.books.group-commit.window:5ms}") Duration window,
+                           @Value("${library.books.group-commit.timeout:5s}") Duration timeout) {
+        if (maxBatch < 1)
+            throw new IllegalArgumentException("library.books.group-commit.max-batch deve ser positivo.");
+        this.books = books;
+        this.enabled = enabled && !shards.isSharded();
+        if (enabled && shards.isSharded())
+            LOGGER.warn("library.books.group-commit.enabled ignorado: com shards as inclusões são gravadas uma a uma.");
+        this.maxBatch = maxBatch;
+        this.window = window;
+        this.timeout = timeout;
+        this.batchSize = DistributionSummary.builder(BATCH_SIZE_SUMMARY).register(registry);
+        this.queueDelay = Timer.builder(QUEUE_DELAY_TIMER).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled)
+            return;
+        writer = new Thread(this::run, "book-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        if (writer != null)
+            writer.interrupt();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Aguarda a gravação do lote em que o livro entrou. A fila não tem limite, mas cada chamada ocupa no
+     * máximo uma posição enquanto aguarda, então o tamanho dela acompanha o número de chamadas
+     * concorrentes.
+     */
+    public Book save(Book book) {
+        if (writer == null)
+            throw new IllegalStateException("O group commit não está habilitado.");
+        if (stopped || !writer.isAlive())
+            throw new IllegalStateException(STOPPED);
+        Pending pending = new Pending(book);
+        queue.add(pending);
+        try {
+            return pending.result.get(window.plus(timeout).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            queue.remove(pending);
+            throw new QueryTimeoutException("O group commit não gravou o livro a tempo.");
+        } catch (InterruptedException ex) {
+            queue.remove(pending);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("A espera pelo group commit foi interrompida.", ex);
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Pending first = queue.take();
+                batch.add(first);
+                long deadline = first.queuedAt + window.toNanos();
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                long now = System.nanoTime();
+                batch.forEach(pending -> queueDelay.record(now - pending.queuedAt, TimeUnit.NANOSECONDS));
+                batchSize.record(batch.size());
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queue.drainTo(batch);
+            IllegalStateException error = new IllegalStateException(STOPPED);
+            batch.forEach(pending -> pending.result.completeExceptionally(error));
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        try {
+            complete(batch, books.getObject().saveAll(batch.stream()
+                    .map(pending -> pending.book)
+                    .collect(Collectors.toList())));
+        } catch (RuntimeException ex) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(ex);
+                return;
+            }
+            batch.forEach(pending -> {
+                pending.reset();
+                write(Collections.singletonList(pending));
+            });
+        }
+    }
+
+    /**
+     * O {@link BookService#saveAll} descarta os isbns já cadastrados e as repetições no próprio lote,
+     * mantendo a primeira; quem não está entre os gravados recebe o erro de isbn duplicado.
+     */
+    private void complete(List<Pending> batch, List<Book> savedBooks) {
+        Map<String, Book> saved = savedBooks.stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity(), (first, second) -> first, HashMap::new));
+        for (Pending pending : batch) {
+            Book savedBook = saved.remove(pending.book.getIsbn());
+            if (savedBook != null)
+                pending.result.complete(savedBook);
+            else
+                pending.result.completeExceptionally(new BusinessException(BookService.DUPLICATE_ISBN));
+        }
+    }
+
+    private static class Pending {
+
+        private final Book book;
+
+        private final Long id;
+
+        private final Long version;
+
+        private final long queuedAt = System.nanoTime();
+
+        private final CompletableFuture<Book> result = new CompletableFuture<>();
+
+        private Pending(Book book) {
+            this.book = book;
+            this.id = book.getId();
+            this.version = book.getVersion();
+        }
+
+        /**
+         * Desfaz o id e a versão atribuídos na transação do lote desfeita, para o livro ser incluído de novo.
+         */
+        private void reset() {
+            book.setId(id);
+            book.setVersion(version);
+        }
+    }
+}
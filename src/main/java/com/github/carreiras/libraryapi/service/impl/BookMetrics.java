@@ -0,0 +1,81 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Timer {@code library.books.operations} das operações de livros, com as tags {@code operation} e
+ * {@code outcome} (created, updated, deleted, found, not_found, duplicate_isbn, business_error,
+ * invalid, error). Os percentis são configurados em {@code management.metrics.distribution.*}.
+ */
+@Component
+public class BookMetrics {
+
+    public static final String OPERATIONS_TIMER = "library.books.operations";
+
+    private MeterRegistry registry;
+
+    public BookMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T record(String operation, Supplier<T> call, Function<? super T, String> outcome) {
+        Timer.Sample sample = Timer.start(registry);
+        String result = "error";
+        try {
+            T value = call.get();
+            result = outcome.apply(value);
+            return value;
+        } catch (RuntimeException ex) {
+            result = outcomeOf(ex);
+            throw ex;
+        } finally {
+            stop(sample, operation, result);
+        }
+    }
+
+    public void record(String operation, Runnable call, String outcome) {
+        record(operation, () -> {
+            call.run();
+            return null;
+        }, value -> outcome);
+    }
+
+    /**
+     * Versão reativa: o tempo vai da assinatura ao término do {@link Mono}; sem valor o resultado é
+     * {@code empty}.
+     */
+    public <T> Mono<T> record(String operation, Mono<T> call, Function<? super T, String> outcome, String empty) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            AtomicReference<String> result = new AtomicReference<>(empty);
+            return call
+                    .doOnNext(value -> result.set(outcome.apply(value)))
+                    .doOnError(RuntimeException.class, ex -> result.set(outcomeOf(ex)))
+                    .doFinally(signal -> stop(sample, operation, result.get()));
+        });
+    }
+
+    private static String outcomeOf(RuntimeException ex) {
+        if (ex instanceof BusinessException)
+            return BookService.DUPLICATE_ISBN.equals(ex.getMessage()) ? "duplicate_isbn" : "business_error";
+        if (ex instanceof IllegalArgumentException)
+            return "invalid";
+        return "error";
+    }
+
+    private void stop(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder(OPERATIONS_TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+}
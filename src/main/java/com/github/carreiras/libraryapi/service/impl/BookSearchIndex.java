@@ -0,0 +1,170 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.model.datasource.ReplicaRoutingDataSource;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido em memória sobre título e autor. Cada termo da busca casa por prefixo com as
+ * palavras indexadas; um livro só é retornado se casar com todos os termos, ordenado por relevância.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+    private static final int EXACT_BONUS = 1;
+
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private BookRepository bookRepository;
+
+    private BookShards shards;
+
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository bookRepository, BookShards shards) {
+        this.bookRepository = bookRepository;
+        this.shards = shards;
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ReplicaRoutingDataSource.onPrimary(() -> shards.forEachShard(() -> {
+            try (Stream<Book> books = bookRepository.streamAll(null, null, null)) {
+                books.forEach(this::index);
+            }
+        }));
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Book book) {
+        Document document = new Document(book.getTitle(), book.getAuthor());
+        lock.writeLock().lock();
+        try {
+            unindex(book.getId());
+            put(book.getId(), document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reindexa apenas os campos informados (não nulos), mantendo os demais como já indexados.
+     */
+    public void patch(Long id, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            Document current = unindex(id);
+            if (current == null)
+                return;
+            put(id, new Document(title != null ? title : current.title, author != null ? author : current.author));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna os ids dos livros que casam com todos os termos, do mais ao menos relevante.
+     */
+    public List<Long> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty())
+            return Collections.emptyList();
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                Map<Long, Integer> termScores = new HashMap<>();
+                postings.subMap(term, true, term + Character.MAX_VALUE, false).forEach((token, ids) -> {
+                    int bonus = token.equals(term) ? EXACT_BONUS : 0;
+                    ids.forEach((id, weight) -> termScores.merge(id, weight + bonus, Integer::sum));
+                });
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty())
+                    return Collections.emptyList();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private void put(Long id, Document document) {
+        documents.put(id, document);
+        document.weights.forEach((token, weight) -> postings.computeIfAbsent(token, t -> new HashMap<>()).put(id, weight));
+    }
+
+    private Document unindex(Long id) {
+        Document document = documents.remove(id);
+        if (document == null)
+            return null;
+        document.weights.keySet().forEach(token -> {
+            Map<Long, Integer> ids = postings.get(token);
+            ids.remove(id);
+            if (ids.isEmpty())
+                postings.remove(token);
+        });
+        return document;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null)
+            return Collections.emptyList();
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(normalized.split("[^\\p{Alnum}]+"))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static final class Document {
+
+        private final String title;
+        private final String author;
+        private final Map<String, Integer> weights = new HashMap<>();
+
+        private Document(String title, String author) {
+            this.title = title;
+            this.author = author;
+            tokenize(title).forEach(token -> weights.merge(token, TITLE_WEIGHT, Integer::sum));
+            tokenize(author).forEach(token -> weights.merge(token, AUTHOR_WEIGHT, Integer::sum));
+        }
+    }
+}
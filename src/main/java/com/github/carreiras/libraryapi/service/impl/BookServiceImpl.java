@@ -1,62 +1,474 @@
 package com.github.carreiras.libraryapi.service.impl;
 
 import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.datasource.ReplicaRoutingDataSource;
 import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import com.github.carreiras.libraryapi.model.repository.BookCursor;
 import com.github.carreiras.libraryapi.model.repository.BookRepository;
 import com.github.carreiras.libraryapi.service.BookService;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    public static final String BOOKS_CACHE = "books";
+
+    public static final String BOOK_HAS_LOANS = "Livro possui empréstimos.";
+
+    public static final String SHARDED_ISBN_CHANGE = "O isbn não pode ser alterado para outro shard.";
+
+    private static final int BULK_CHUNK_SIZE = 1000;
+
     private BookRepository bookRepository;
 
-    public BookServiceImpl(BookRepository repository) {
+    private IsbnIndex isbnIndex;
+
+    private BookSearchIndex searchIndex;
+
+    private BookFacets facets;
+
+    private BookMetrics metrics;
+
+    private BookWrites writes;
+
+    private SingleFlight singleFlight;
+
+    private ReadYourWrites readYourWrites;
+
+    private BookShards shards;
+
+    private BookChangeServiceImpl changes;
+
+    private BookGroupCommit groupCommit;
+
+    private TransactionTemplate transaction;
+
+    public BookServiceImpl(BookRepository repository, IsbnIndex isbnIndex, BookSearchIndex searchIndex,
+                           BookFacets facets, BookMetrics metrics, BookWrites writes, SingleFlight singleFlight,
+                           ReadYourWrites readYourWrites, BookShards shards, BookChangeServiceImpl changes,
+                           BookGroupCommit groupCommit, PlatformTransactionManager transactionManager) {
         this.bookRepository = repository;
+        this.isbnIndex = isbnIndex;
+        this.searchIndex = searchIndex;
+        this.facets = facets;
+        this.metrics = metrics;
+        this.writes = writes;
+        this.singleFlight = singleFlight;
+        this.readYourWrites = readYourWrites;
+        this.shards = shards;
+        this.changes = changes;
+        this.groupCommit = groupCommit;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * O livro e a alteração no outbox são gravados na mesma transação; o flush antecipa a violação do
+     * isbn para a tradução abaixo. Com group commit o livro é gravado no próximo lote de
+     * {@link BookGroupCommit}; por isso a transação é aberta só na gravação direta, e quem aguarda o lote
+     * não segura uma conexão.
+     */
     @Override
     public Book save(Book book) {
-        existsByIsbn(book);
-        return bookRepository.save(book);
+        return metrics.record("save", () -> groupCommit.isEnabled() ? groupCommit.save(book) : doSave(book),
+                savedBook -> "created");
+    }
+
+    private Book doSave(Book book) {
+        Book savedBook;
+        try {
+            savedBook = transaction.execute(status -> shards.onIsbn(book.getIsbn(), () -> {
+                existsByIsbn(book);
+                Book saved = bookRepository.save(book);
+                bookRepository.flush();
+                changes.created(Collections.singletonList(saved));
+                return saved;
+            }));
+        } catch (DataIntegrityViolationException ex) {
+            throw translateIsbnViolation(ex);
+        }
+        writes.created(savedBook);
+        return savedBook;
+    }
+
+    @Override
+    @Transactional
+    public List<Book> saveAll(List<Book> books) {
+        if (books.isEmpty())
+            return books;
+        List<Book> savedBooks = new ArrayList<>();
+        shards.onShards(shards.byShard(books, book -> shards.shardOf(book.getIsbn())), this::saveNew)
+                .forEach(savedBooks::addAll);
+        afterCommit(() -> savedBooks.forEach(writes::created));
+        return savedBooks;
+    }
+
+    /**
+     * Confere e grava os livros por lotes de {@code BULK_CHUNK_SIZE}, esvaziando o contexto de
+     * persistência a cada lote; os isbns já vistos em lotes anteriores também são descartados.
+     */
+    private List<Book> saveNew(List<Book> books) {
+        Set<String> existing = new HashSet<>();
+        List<Book> savedBooks = new ArrayList<>();
+        for (List<Book> chunk : chunks(books)) {
+            Set<String> candidates = chunk.stream()
+                    .map(Book::getIsbn)
+                    .filter(isbnIndex::mightContain)
+                    .filter(isbn -> !existing.contains(isbn))
+                    .collect(Collectors.toSet());
+            if (!candidates.isEmpty())
+                existing.addAll(bookRepository.findIsbnByIsbnIn(candidates));
+            List<Book> newBooks = chunk.stream()
+                    .filter(book -> existing.add(book.getIsbn()))
+                    .collect(Collectors.toList());
+            try {
+                List<Book> saved = bookRepository.saveAll(newBooks);
+                changes.created(saved);
+                bookRepository.flushAndClear();
+                savedBooks.addAll(saved);
+            } catch (DataIntegrityViolationException ex) {
+                throw translateIsbnViolation(ex);
+            }
+        }
+        return savedBooks;
     }
 
+    /**
+     * Como em {@link #patchAll}, os índices em memória e o cache são atualizados após o commit.
+     */
     @Override
+    @Transactional
     public Book update(Book book) {
+        return metrics.record("update", () -> doUpdate(book), updatedBook -> "updated");
+    }
+
+    private Book doUpdate(Book book) {
         bookIsNull(book);
-        return bookRepository.save(book);
+        if (!shards.isbnMatchesId(book.getIsbn(), book.getId()))
+            throw new BusinessException(SHARDED_ISBN_CHANGE);
+        Book updatedBook;
+        try {
+            updatedBook = shards.onId(book.getId(), () -> {
+                Book saved = bookRepository.save(book);
+                bookRepository.flush();
+                changes.updated(saved);
+                return saved;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            throw translateIsbnViolation(ex);
+        }
+        afterCommit(() -> writes.updated(updatedBook));
+        return updatedBook;
     }
 
+    /**
+     * Como em {@link #patchAll}, os índices em memória e o cache são atualizados após o commit.
+     */
     @Override
+    @Transactional
+    public boolean patch(Book changes) {
+        return metrics.record("patch", () -> doPatch(changes), patched -> patched ? "updated" : "not_found");
+    }
+
+    /**
+     * Os índices em memória e o cache são atualizados após o commit, por {@link BookWrites}.
+     */
+    @Override
+    @Transactional
+    public List<Long> patchAll(List<Book> changes) {
+        changes.forEach(this::bookIsNull);
+        List<Book> patchedBooks = new ArrayList<>();
+        shards.onShards(shards.byShard(changes, book -> shards.shardOf(book.getId())), books -> {
+                    List<Book> shardPatched = books.stream()
+                            .filter(book -> bookRepository.patch(book) > 0)
+                            .collect(Collectors.toList());
+                    this.changes.patched(shardPatched);
+                    return shardPatched;
+                })
+                .forEach(patchedBooks::addAll);
+        afterCommit(() -> patchedBooks.forEach(writes::patched));
+        return patchedBooks.stream().map(Book::getId).collect(Collectors.toList());
+    }
+
+    private boolean doPatch(Book changes) {
+        bookIsNull(changes);
+        int patched = shards.onId(changes.getId(), () -> {
+            int rows = bookRepository.patch(changes);
+            if (rows > 0)
+                this.changes.patched(Collections.singletonList(changes));
+            return rows;
+        });
+        if (patched == 0)
+            return false;
+        afterCommit(() -> writes.patched(changes));
+        return true;
+    }
+
+    /**
+     * O flush antecipa a violação dos empréstimos para a tradução abaixo; os índices e o cache são
+     * atualizados após o commit.
+     */
+    @Override
+    @Transactional
     public void delete(Book book) {
+        metrics.record("delete", () -> doDelete(book), "deleted");
+    }
+
+    private void doDelete(Book book) {
         bookIsNull(book);
-        bookRepository.delete(book);
+        try {
+            shards.onId(book.getId(), () -> {
+                bookRepository.delete(book);
+                bookRepository.flush();
+                changes.deleted(Collections.singletonMap(book.getId(), book.getIsbn()));
+                return null;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            throw translateLoanViolation(ex);
+        }
+        Map<Long, String> deleted = Collections.singletonMap(book.getId(), book.getIsbn());
+        afterCommit(() -> writes.deleted(deleted));
+    }
+
+    /**
+     * Remove com um único DELETE, sem carregar o livro; antes só o isbn é lido, para retirá-lo do
+     * {@link IsbnIndex}. Como em {@link #deleteAll}, os índices e o cache são atualizados após o commit.
+     * Um livro com empréstimos não é removido.
+     */
+    @Override
+    @Transactional
+    public boolean deleteById(Long id, Long version) {
+        return metrics.record("delete", () -> {
+            Map<Long, String> books;
+            try {
+                books = shards.onId(id, () -> {
+                    Map<Long, String> selected = bookRepository.findIsbnById(new Book(), Collections.singletonList(id));
+                    if (bookRepository.deleteByIdAndVersion(id, version) == 0)
+                        return Collections.<Long, String>emptyMap();
+                    Map<Long, String> deleted = Collections.singletonMap(id, selected.get(id));
+                    changes.deleted(deleted);
+                    return deleted;
+                });
+            } catch (DataIntegrityViolationException ex) {
+                throw translateLoanViolation(ex);
+            }
+            if (books.isEmpty())
+                return false;
+            afterCommit(() -> writes.deleted(books));
+            return true;
+        }, deleted -> deleted ? "deleted" : "not_found");
+    }
+
+    /**
+     * Seleciona id e isbn dos livros e os remove com DELETEs por lotes de ids, numa transação por shard.
+     * Como em {@link #patchAll}, os índices e o cache são atualizados após o commit. Se algum dos livros
+     * tiver empréstimos, nada é removido.
+     */
+    @Override
+    @Transactional
+    public int deleteAll(List<Long> ids, Book filter) {
+        Map<Long, String> books = new LinkedHashMap<>();
+        AtomicInteger deleted = new AtomicInteger();
+        List<Map<Long, String>> removed;
+        try {
+            removed = ids == null
+                    ? shards.onEveryShard(() -> deleteSelected(bookRepository.findIsbnById(filter, null), deleted))
+                    : shards.onShards(shards.byShard(ids, id -> shards.shardOf(id)), shardIds -> {
+                        Map<Long, String> selected = new LinkedHashMap<>();
+                        chunks(shardIds).forEach(chunk -> selected.putAll(bookRepository.findIsbnById(filter, chunk)));
+                        return deleteSelected(selected, deleted);
+                    });
+        } catch (DataIntegrityViolationException ex) {
+            throw translateLoanViolation(ex);
+        }
+        removed.forEach(books::putAll);
+        afterCommit(() -> writes.deleted(books));
+        return deleted.get();
     }
 
+    private Map<Long, String> deleteSelected(Map<Long, String> books, AtomicInteger deleted) {
+        for (List<Long> chunk : chunks(new ArrayList<>(books.keySet())))
+            deleted.addAndGet(bookRepository.deleteByIdIn(chunk));
+        changes.deleted(books);
+        return books;
+    }
+
+    /**
+     * Lê uma projeção do livro numa transação somente leitura, numa réplica se houver;
+     * um livro gravado há pouco ({@link ReadYourWrites}) é lido do primário, fora do single-flight.
+     */
     @Override
+    @Cacheable(cacheNames = BOOKS_CACHE, unless = "#result == null")
     public Optional<Book> findById(Long id) {
-        return bookRepository.findById(id);
+        return metrics.record("findById", () -> readYourWrites.recentlyWritten(id)
+                        ? ReplicaRoutingDataSource.onPrimary(() -> findBook(id))
+                        : singleFlight.execute("findById", id, () -> findBook(id)),
+                book -> book.isPresent() ? "found" : "not_found");
+    }
+
+    private Optional<Book> findBook(Long id) {
+        return shards.onId(id, () -> bookRepository.findDetachedById(id));
+    }
+
+    @Override
+    public Optional<Book> getBookByIsbn(String isbn) {
+        return shards.onIsbn(isbn, () -> bookRepository.findByIsbn(isbn));
     }
 
     @Override
     public Page<Book> find(Book filter, Pageable pageRequest) {
-        Example<Book> bookExample = Example.of(filter, ExampleMatcher
-                .matching()
-                .withIgnoreCase()
-                .withIgnoreNullValues()
-                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return bookRepository.findAll(bookExample, pageRequest);
+        return metrics.record("find", () -> singleFlight.execute("find", flightKey(filter, pageRequest),
+                        () -> doFind(filter, pageRequest)),
+                page -> page.hasContent() ? "found" : "not_found");
+    }
+
+    private Page<Book> doFind(Book filter, Pageable pageRequest) {
+        return shards.findPage(pageRequest, page -> bookRepository.findPage(filter, page), Book::getId);
+    }
+
+    @Override
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        return singleFlight.execute("findSlice", flightKey(filter, pageRequest),
+                () -> shards.findSlice(pageRequest, page -> bookRepository.findSlice(filter, page), Book::getId));
+    }
+
+    /**
+     * Enquanto o índice em memória não foi carregado, busca na base os livros cujo título ou autor
+     * contém o texto.
+     */
+    @Override
+    public Page<Book> search(String query, Pageable pageRequest) {
+        if (!searchIndex.isReady())
+            return shards.findPage(pageRequest, page -> bookRepository.searchPage(query, page), Book::getId);
+        List<Long> ids = searchIndex.search(query);
+        int from = (int) Math.min(pageRequest.getOffset(), ids.size());
+        int to = Math.min(from + pageRequest.getPageSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+        Map<Integer, List<Long>> idsByShard = shards.byShard(pageIds, id -> shards.shardOf(id));
+        Map<Long, Book> books = shards.fanOut(shard -> findDetached(idsByShard.getOrDefault(shard, Collections.emptyList())))
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(Book::getId, Function.identity(), (first, second) -> first));
+        List<Book> content = pageIds.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageRequest, ids.size());
+    }
+
+    /**
+     * Enquanto as contagens em memória não foram carregadas, agrupa na base; com shards as contagens de
+     * cada shard são somadas antes de limitar.
+     */
+    @Override
+    public Map<String, Long> facets(String field, String prefix, int size) {
+        BookFacets.Field facet = BookFacets.Field.of(field)
+                .orElseThrow(() -> new BusinessException("Campo inválido para contagem."));
+        if (facets.isReady())
+            return facets.top(facet, prefix, size);
+        Map<String, Long> counts = new HashMap<>();
+        shards.fanOut(shard -> bookRepository.countBy(facet.getAttribute(), prefix, shards.isSharded() ? null : size))
+                .forEach(shardCounts -> shardCounts.forEach((value, count) -> counts.merge(value, count, Long::sum)));
+        return BookFacets.top(counts.entrySet(), size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findAfter(Book filter, BookCursor cursor, int size) {
+        Sort order = "id".equals(cursor.getSort()) ? Sort.by("id") : Sort.by(cursor.getSort(), "id");
+        List<Book> books = BookShards.merge(shards.fanOut(shard -> bookRepository.findAfter(filter, cursor, size + 1)),
+                BookShards.comparator(order), Book::getId);
+        books = books.subList(0, Math.min(books.size(), size + 1));
+        boolean hasNext = books.size() > size;
+        return new SliceImpl<>(hasNext ? books.subList(0, size) : books, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(Book filter, Consumer<Book> action) {
+        shards.forEachShard(() -> {
+            try (Stream<Book> books = bookRepository.streamAll(filter.getTitle(), filter.getAuthor(), filter.getIsbn())) {
+                books.forEach(action);
+            }
+        });
+    }
+
+    private List<Book> findDetached(List<Long> ids) {
+        return ids.isEmpty() ? Collections.emptyList() : bookRepository.findDetachedByIdIn(ids);
     }
 
     private void existsByIsbn(Book book) {
-        if (bookRepository.existsByIsbn(book.getIsbn()))
-            throw new BusinessException("Isbn já cadastrado.");
+        if (isbnIndex.mightContain(book.getIsbn()) && bookRepository.existsByIsbn(book.getIsbn()))
+            throw new BusinessException(DUPLICATE_ISBN);
+    }
+
+    private RuntimeException translateIsbnViolation(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        if (message != null && message.toLowerCase().contains(Book.ISBN_CONSTRAINT))
+            return new BusinessException(DUPLICATE_ISBN);
+        return ex;
+    }
+
+    private RuntimeException translateLoanViolation(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        if (message != null && message.toLowerCase().contains(Loan.BOOK_CONSTRAINT))
+            return new BusinessException(BOOK_HAS_LOANS);
+        return ex;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static List<Object> flightKey(Book filter, Pageable pageRequest) {
+        return Arrays.asList(filter.getId(), filter.getTitle(), filter.getAuthor(), filter.getIsbn(), pageRequest);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += BULK_CHUNK_SIZE)
+            chunks.add(values.subList(from, Math.min(from + BULK_CHUNK_SIZE, values.size())));
+        return chunks;
     }
 
     private void bookIsNull(Book book) {
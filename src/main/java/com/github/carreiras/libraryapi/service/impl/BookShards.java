@@ -0,0 +1,314 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.datasource.ShardMap;
+import com.github.carreiras.libraryapi.model.datasource.ShardRoutingDataSource;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Execução das operações de livros e empréstimos nos shards. Sem {@code library.sharding.shards} há um
+ * só shard e as chamadas passam direto, nas transações de quem chama. Com shards, cada chamada roda em
+ * uma transação própria no shard da chave, e as buscas em todos os shards em paralelo, num pool com
+ * uma thread por conexão dos shards para que buscas concorrentes não esperem umas pelas outras.
+ */
+@Component
+public class BookShards {
+
+    public static final int MAX_OFFSET = 10_000;
+
+    public static final String DEEP_PAGE = "Página muito distante; use a listagem por cursor (after).";
+
+    private final ShardMap shardMap;
+
+    private final TransactionTemplate transaction;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ExecutorService executor;
+
+    public BookShards(Optional<ShardMap> shardMap, PlatformTransactionManager transactionManager) {
+        this.shardMap = shardMap.orElse(null);
+        if (this.shardMap == null) {
+            this.transaction = null;
+            this.readOnlyTransaction = null;
+            this.executor = null;
+            return;
+        }
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.shardMap.connections(), task -> {
+            Thread thread = new Thread(task, "book-shard-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isSharded() {
+        return shardMap != null;
+    }
+
+    public int shardCount() {
+        return shardMap == null ? 1 : shardMap.shardCount();
+    }
+
+    public int shardOf(String isbn) {
+        return shardMap == null ? 0 : shardMap.shardOf(ShardMap.bucketOf(isbn));
+    }
+
+    public int shardOf(Long id) {
+        return shardMap == null || id == null ? 0 : shardMap.shardOf(ShardMap.bucketOf(id));
+    }
+
+    /**
+     * Com shards, o isbn de um livro não pode mudar de bucket: o bucket está no id.
+     */
+    public boolean isbnMatchesId(String isbn, Long id) {
+        return shardMap == null || id == null || ShardMap.bucketOf(isbn) == ShardMap.bucketOf(id);
+    }
+
+    public <T> T onIsbn(String isbn, Supplier<T> call) {
+        return shardMap == null ? call.get() : routed(() -> inTransaction(shardOf(isbn), call));
+    }
+
+    public <T> T onId(Long id, Supplier<T> call) {
+        return shardMap == null ? call.get() : routed(() -> inTransaction(shardOf(id), call));
+    }
+
+    /**
+     * Executa cada grupo de itens, já separados por {@link #byShard}, numa transação no seu shard.
+     */
+    public <T, R> List<R> onShards(Map<Integer, List<T>> groups, Function<List<T>, R> call) {
+        if (shardMap == null)
+            return groups.values().stream().map(call).collect(Collectors.toList());
+        return routed(() -> groups.entrySet().stream()
+                .map(group -> inTransaction(group.getKey(), () -> call.apply(group.getValue())))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Executa a chamada numa transação em cada shard, um por vez.
+     */
+    public <R> List<R> onEveryShard(Supplier<R> call) {
+        if (shardMap == null)
+            return Collections.singletonList(call.get());
+        return routed(() -> {
+            List<R> results = new ArrayList<>();
+            for (int shard = 0; shard < shardMap.shardCount(); shard++)
+                results.add(inTransaction(shard, call));
+            return results;
+        });
+    }
+
+    public <T> Map<Integer, List<T>> byShard(Collection<T> items, Function<T, Integer> shardOf) {
+        if (shardMap == null)
+            return Collections.singletonMap(0, new ArrayList<>(items));
+        return items.stream().collect(Collectors.groupingBy(shardOf, TreeMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Executa a consulta em todos os shards em paralelo, cada um numa transação somente leitura.
+     */
+    public <T> List<T> fanOut(IntFunction<T> query) {
+        if (shardMap == null)
+            return Collections.singletonList(query.apply(0));
+        return routed(() -> {
+            List<CompletableFuture<T>> results = new ArrayList<>();
+            for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+                int target = shard;
+                results.add(CompletableFuture.supplyAsync(() -> ShardRoutingDataSource.onShard(target,
+                        () -> readOnlyTransaction.execute(status -> query.apply(target))), executor));
+            }
+            try {
+                return results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) ex.getCause();
+                throw ex;
+            }
+        });
+    }
+
+    /**
+     * Página de uma consulta ordenada: cada shard devolve as primeiras {@code offset + size} linhas,
+     * intercaladas e recortadas aqui. O custo cresce com o offset; para paginação profunda há o cursor.
+     */
+    public <T> Page<T> findPage(Pageable pageable, Function<Pageable, Page<T>> query, Function<T, Object> id) {
+        if (shardMap == null)
+            return query.apply(pageable);
+        Pageable top = top(pageable);
+        List<Page<T>> pages = fanOut(shard -> query.apply(top));
+        List<T> merged = merge(pages.stream().map(Page::getContent).collect(Collectors.toList()), comparator(top.getSort()), id);
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        return new PageImpl<>(window(merged, pageable), pageable, total);
+    }
+
+    public <T> Slice<T> findSlice(Pageable pageable, Function<Pageable, Slice<T>> query, Function<T, Object> id) {
+        if (shardMap == null)
+            return query.apply(pageable);
+        Pageable top = top(pageable);
+        List<Slice<T>> slices = fanOut(shard -> query.apply(top));
+        List<T> merged = merge(slices.stream().map(Slice::getContent).collect(Collectors.toList()), comparator(top.getSort()), id);
+        boolean hasNext = slices.stream().anyMatch(Slice::hasNext)
+                || (pageable.isPaged() && merged.size() > pageable.getOffset() + pageable.getPageSize());
+        return new SliceImpl<>(window(merged, pageable), pageable, hasNext);
+    }
+
+    /**
+     * Como {@link #fanOut}, mas um shard por vez na thread atual, para consultas em stream.
+     */
+    public void forEachShard(Runnable call) {
+        if (shardMap == null) {
+            call.run();
+            return;
+        }
+        routed(() -> {
+            for (int shard = 0; shard < shardMap.shardCount(); shard++)
+                ShardRoutingDataSource.onShard(shard, () -> readOnlyTransaction.execute(status -> {
+                    call.run();
+                    return null;
+                }));
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Intercala listas já ordenadas por {@code order}, descartando ids repetidos (um livro pode estar em
+     * dois shards enquanto o seu bucket é migrado).
+     */
+    public static <T> List<T> merge(List<? extends List<T>> sorted, Comparator<? super T> order, Function<T, Object> id) {
+        if (sorted.size() == 1)
+            return new ArrayList<>(sorted.get(0));
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.head(), b.head()));
+        sorted.stream().filter(list -> !list.isEmpty()).map(Cursor::new).forEach(heads::add);
+        List<T> merged = new ArrayList<>();
+        Set<Object> seen = new HashSet<>();
+        while (!heads.isEmpty()) {
+            Cursor<T> cursor = heads.poll();
+            T item = cursor.head();
+            if (seen.add(id.apply(item)))
+                merged.add(item);
+            if (cursor.advance())
+                heads.add(cursor);
+        }
+        return merged;
+    }
+
+    /**
+     * Ordem de {@code sort} sobre as propriedades dos objetos, igual à das consultas em cada shard: nulos
+     * primeiro nos dois sentidos ({@code hibernate.order_by.default_null_ordering=first}), {@code lower}
+     * quando ignora maiúsculas e textos pela ordem dos caracteres, o que pede colação binária nos shards
+     * (como a do H2 ou {@code COLLATE "C"} no Postgres).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Comparable> values = order.isIgnoreCase()
+                    ? Comparator.comparing(value -> value.toString().toLowerCase(Locale.ROOT))
+                    : Comparator.<Comparable>naturalOrder();
+            Comparator<T> property = Comparator.comparing(
+                    item -> (Comparable) new BeanWrapperImpl(item).getPropertyValue(order.getProperty()),
+                    Comparator.nullsFirst(order.isAscending() ? values : values.reversed()));
+            comparator = comparator.thenComparing(property);
+        }
+        return comparator;
+    }
+
+    /**
+     * Cada shard precisa devolver {@code offset + size} linhas, então páginas além de
+     * {@link #MAX_OFFSET} são recusadas em favor da listagem por cursor.
+     */
+    private static Pageable top(Pageable pageable) {
+        Sort sort = pageable.getSort().getOrderFor("id") == null ? pageable.getSort().and(Sort.by("id")) : pageable.getSort();
+        if (pageable.isUnpaged())
+            return Pageable.unpaged();
+        if (pageable.getOffset() + pageable.getPageSize() > MAX_OFFSET)
+            throw new BusinessException(DEEP_PAGE);
+        return PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), sort);
+    }
+
+    private static <T> List<T> window(List<T> merged, Pageable pageable) {
+        if (pageable.isUnpaged())
+            return merged;
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        return merged.subList(from, Math.min(from + pageable.getPageSize(), merged.size()));
+    }
+
+    private <T> T routed(Supplier<T> call) {
+        Lock lock = shardMap.lock().readLock();
+        lock.lock();
+        try {
+            return call.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T inTransaction(int shard, Supplier<T> call) {
+        return ShardRoutingDataSource.onShard(shard, () -> transaction.execute(status -> call.get()));
+    }
+
+    private static class Cursor<T> {
+
+        private final List<T> items;
+
+        private int position;
+
+        Cursor(List<T> items) {
+            this.items = items;
+        }
+
+        T head() {
+            return items.get(position);
+        }
+
+        boolean advance() {
+            return ++position < items.size();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Reflete uma gravação de livro confirmada no {@link IsbnIndex}, no {@link BookSearchIndex}, no
+ * {@link BookFacets}, no {@link ReadYourWrites} e no cache de livros. Usado pelo serviço servlet e pelo
+ * reativo, sempre depois do commit, para uma leitura concorrente não recolocar no cache a versão
+ * anterior à alteração.
+ */
+@Component
+public class BookWrites {
+
+    private final IsbnIndex isbnIndex;
+
+    private final BookSearchIndex searchIndex;
+
+    private final BookFacets facets;
+
+    private final ReadYourWrites readYourWrites;
+
+    private final CacheManager cacheManager;
+
+    public BookWrites(IsbnIndex isbnIndex, BookSearchIndex searchIndex, BookFacets facets,
+                      ReadYourWrites readYourWrites, CacheManager cacheManager) {
+        this.isbnIndex = isbnIndex;
+        this.searchIndex = searchIndex;
+        this.facets = facets;
+        this.readYourWrites = readYourWrites;
+        this.cacheManager = cacheManager;
+    }
+
+    public void created(Book book) {
+        isbnIndex.add(book.getIsbn());
+        searchIndex.index(book);
+        facets.index(book);
+        readYourWrites.written(book.getId());
+    }
+
+    /**
+     * O livro sai do cache em vez de ser substituído, para que dois commits concorrentes não deixem no
+     * cache a versão mais antiga; ele volta na próxima leitura.
+     */
+    public void updated(Book book) {
+        created(book);
+        evict(book.getId());
+    }
+
+    /**
+     * Um PATCH só conhece os campos alterados; os demais ficam como estão nos índices.
+     */
+    public void patched(Book changes) {
+        searchIndex.patch(changes.getId(), changes.getTitle(), changes.getAuthor());
+        facets.patch(changes.getId(), changes.getTitle(), changes.getAuthor());
+        readYourWrites.written(changes.getId());
+        evict(changes.getId());
+    }
+
+    /**
+     * Ids e isbns (quando conhecidos) dos livros removidos.
+     */
+    public void deleted(Map<Long, String> books) {
+        books.forEach((id, isbn) -> {
+            isbnIndex.remove(isbn);
+            searchIndex.remove(id);
+            facets.remove(id);
+            evict(id);
+        });
+    }
+
+    private void evict(Long id) {
+        Cache cache = cacheManager.getCache(BookServiceImpl.BOOKS_CACHE);
+        if (cache != null && id != null)
+            cache.evict(id);
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.model.datasource.ReplicaRoutingDataSource;
+import com.github.carreiras.libraryapi.model.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória dos Isbns cadastrados. Responde com certeza apenas quando o Isbn não está
+ * no índice; uma resposta positiva (ou um índice ainda não carregado) deve ser confirmada na base.
+ */
+@Component
+public class IsbnIndex {
+
+    private final Set<String> isbns = ConcurrentHashMap.newKeySet();
+
+    private BookRepository bookRepository;
+
+    private BookShards shards;
+
+    private volatile boolean warmedUp;
+
+    public IsbnIndex(BookRepository bookRepository, BookShards shards) {
+        this.bookRepository = bookRepository;
+        this.shards = shards;
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ReplicaRoutingDataSource.onPrimary(() -> shards.forEachShard(() -> {
+            try (Stream<String> stored = bookRepository.streamAllIsbns()) {
+                stored.forEach(isbns::add);
+            }
+        }));
+        warmedUp = true;
+    }
+
+    public boolean mightContain(String isbn) {
+        return !warmedUp || isbn == null || isbns.contains(isbn);
+    }
+
+    public void add(String isbn) {
+        if (isbn != null)
+            isbns.add(isbn);
+    }
+
+    public void remove(String isbn) {
+        if (isbn != null)
+            isbns.remove(isbn);
+    }
+}
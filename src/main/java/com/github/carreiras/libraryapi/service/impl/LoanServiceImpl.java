@@ -0,0 +1,74 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import com.github.carreiras.libraryapi.model.repository.LoanRepository;
+import com.github.carreiras.libraryapi.service.LoanService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+@Service
+public class LoanServiceImpl implements LoanService {
+
+    private LoanRepository loanRepository;
+
+    private BookShards shards;
+
+    public LoanServiceImpl(LoanRepository repository, BookShards shards) {
+        this.loanRepository = repository;
+        this.shards = shards;
+    }
+
+    /**
+     * Com shards, o empréstimo fica no shard do livro e o seu id carrega o mesmo bucket.
+     */
+    @Override
+    public Loan save(Loan loan) {
+        return shards.onId(loan.getBook().getId(), () -> {
+            if (loanRepository.existsByActiveBookId(loan.getBook().getId()))
+                throw new BusinessException("Livro já emprestado.");
+            loan.setReturned(false);
+            loan.setActiveBookId(loan.getBook().getId());
+            return saveLoan(loan);
+        });
+    }
+
+    @Override
+    public Optional<Loan> getById(Long id) {
+        return shards.onId(id, () -> loanRepository.findById(id));
+    }
+
+    @Override
+    public Loan update(Loan loan) {
+        loanIsNull(loan);
+        loan.setActiveBookId(Boolean.TRUE.equals(loan.getReturned()) ? null : loan.getBook().getId());
+        return shards.onId(loan.getId(), () -> saveLoan(loan));
+    }
+
+    @Override
+    public Page<Loan> find(String isbn, String customer, Pageable pageRequest) {
+        if (isbn != null)
+            return shards.onIsbn(isbn, () -> loanRepository.findByIsbnAndCustomer(isbn, customer, pageRequest));
+        return shards.findPage(pageRequest, page -> loanRepository.findByIsbnAndCustomer(null, customer, page), Loan::getId);
+    }
+
+    private Loan saveLoan(Loan loan) {
+        try {
+            return loanRepository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException ex) {
+            String message = ex.getMostSpecificCause().getMessage();
+            if (message != null && message.toLowerCase().contains(Loan.ACTIVE_LOAN_CONSTRAINT))
+                throw new BusinessException("Livro já emprestado.");
+            throw ex;
+        }
+    }
+
+    private void loanIsNull(Loan loan) {
+        if (loan == null || loan.getId() == null)
+            throw new IllegalArgumentException("O Id do empréstimo não pode ser nulo.");
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import com.github.carreiras.libraryapi.model.repository.ReactiveBookRepository;
+import com.github.carreiras.libraryapi.service.BookService;
+import com.github.carreiras.libraryapi.service.ReactiveBookService;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+/**
+ * Serviço de livros do profile {@code reactive}, sobre R2DBC. Cada gravação e a sua alteração no outbox
+ * vão numa transação R2DBC; depois do commit, {@link BookWrites} atualiza os mesmos índices em memória e o
+ * mesmo cache do serviço servlet, e o tempo de cada operação vai para {@link BookMetrics}.
+ * <p>
+ * O gerenciador de transações R2DBC fica só aqui: registrado como bean, ele tomaria o lugar do
+ * gerenciador JPA, que continua atendendo os demais serviços nesse profile.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+
+    private ReactiveBookRepository bookRepository;
+
+    private IsbnIndex isbnIndex;
+
+    private BookWrites writes;
+
+    private BookChangeServiceImpl changes;
+
+    private BookMetrics metrics;
+
+    private TransactionalOperator transaction;
+
+    public ReactiveBookServiceImpl(ReactiveBookRepository repository, IsbnIndex isbnIndex, BookWrites writes,
+                                   BookChangeServiceImpl changes, BookMetrics metrics, ConnectionFactory connectionFactory) {
+        this.bookRepository = repository;
+        this.isbnIndex = isbnIndex;
+        this.writes = writes;
+        this.changes = changes;
+        this.metrics = metrics;
+        this.transaction = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    @Override
+    public Mono<Book> save(Book book) {
+        Mono<Boolean> exists = isbnIndex.mightContain(book.getIsbn())
+                ? bookRepository.existsByIsbn(book.getIsbn())
+                : Mono.just(false);
+        Mono<Book> saved = exists
+                .flatMap(found -> found
+                        ? Mono.<Book>error(new BusinessException(BookService.DUPLICATE_ISBN))
+                        : transaction.transactional(bookRepository.insert(book)
+                                .flatMap(inserted -> record(BookChange.Type.CREATED, inserted).thenReturn(inserted))))
+                .onErrorMap(DataIntegrityViolationException.class, this::translateIsbnViolation)
+                .doOnNext(writes::created);
+        return metrics.record("save", saved, savedBook -> "created", "error");
+    }
+
+    /**
+     * Com a versão informada o UPDATE só altera o livro que ainda está nela; se ele existir em outra
+     * versão, falha com {@link OptimisticLockingFailureException}, como o {@code @Version} do JPA.
+     */
+    @Override
+    public Mono<Book> update(Book book) {
+        if (book == null || book.getId() == null)
+            return metrics.record("update", Mono.error(new IllegalArgumentException("O Id do livro não pode ser nulo.")),
+                    updatedBook -> "updated", "not_found");
+        Book updatedBook = Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .version(book.getVersion() == null ? null : book.getVersion() + 1)
+                .build();
+        Mono<Book> updated = transaction.transactional(bookRepository.update(book)
+                        .flatMap(rows -> rows > 0 ? Mono.just(updatedBook) : notUpdated(book))
+                        .flatMap(changed -> record(BookChange.Type.UPDATED, changed).thenReturn(changed)))
+                .onErrorMap(DataIntegrityViolationException.class, this::translateIsbnViolation)
+                .doOnNext(writes::updated);
+        return metrics.record("update", updated, changed -> "updated", "not_found");
+    }
+
+    @Override
+    public Mono<Boolean> deleteById(Long id) {
+        Mono<Boolean> deleted = transaction.transactional(bookRepository.findById(id)
+                        .flatMap(book -> bookRepository.deleteById(id)
+                                .filter(rows -> rows > 0)
+                                .flatMap(rows -> record(BookChange.Type.DELETED, Book.builder().id(id).isbn(book.getIsbn()).build())
+                                        .thenReturn(book))))
+                .onErrorMap(DataIntegrityViolationException.class, this::translateLoanViolation)
+                .doOnNext(book -> writes.deleted(Collections.singletonMap(id, book.getIsbn())))
+                .map(book -> true)
+                .defaultIfEmpty(false);
+        return metrics.record("delete", deleted, removed -> removed ? "deleted" : "not_found", "not_found");
+    }
+
+    @Override
+    public Mono<Book> findById(Long id) {
+        return bookRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Page<Book>> find(Book filter, Pageable pageRequest) {
+        return bookRepository.find(filter, pageRequest)
+                .collectList()
+                .zipWith(bookRepository.count(filter))
+                .map(result -> new PageImpl<>(result.getT1(), pageRequest, result.getT2()));
+    }
+
+    /**
+     * Grava a alteração no outbox, na transação de quem assina, e aplica o prazo de
+     * {@code library.books.changes.transaction-timeout} antes do commit.
+     */
+    private Mono<Void> record(BookChange.Type type, Book book) {
+        return Mono.defer(() -> {
+            BookChange change = BookChangeServiceImpl.change(type, book);
+            return bookRepository.insertChange(change)
+                    .then(Mono.fromRunnable(() -> changes.checkDeadline(change.getChangedAt())));
+        });
+    }
+
+    private Mono<Book> notUpdated(Book book) {
+        if (book.getVersion() == null)
+            return Mono.empty();
+        return bookRepository.findById(book.getId())
+                .flatMap(current -> Mono.error(new OptimisticLockingFailureException("O livro foi alterado por outra requisição.")));
+    }
+
+    private Throwable translateIsbnViolation(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        if (message != null && message.toLowerCase().contains(Book.ISBN_CONSTRAINT))
+            return new BusinessException(BookService.DUPLICATE_ISBN);
+        return ex;
+    }
+
+    private Throwable translateLoanViolation(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        if (message != null && message.toLowerCase().contains(Loan.BOOK_CONSTRAINT))
+            return new BusinessException(BookServiceImpl.BOOK_HAS_LOANS);
+        return ex;
+    }
+}
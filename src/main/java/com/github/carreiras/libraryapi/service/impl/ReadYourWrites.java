@@ -0,0 +1,34 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Guarda por {@code library.datasource.read-your-writes} os ids de livros recém-gravados, que devem
+ * ser lidos do primário enquanto as réplicas podem não tê-los recebido. Com {@code 0s} (padrão) não
+ * guarda nada.
+ */
+@Component
+public class ReadYourWrites {
+
+    private final Cache<Long, Boolean> recentWrites;
+
+    public ReadYourWrites(@Value("${library.datasource.read-your-writes:0s}") Duration window) {
+        this.recentWrites = window.isZero() || window.isNegative()
+                ? null
+                : Caffeine.newBuilder().expireAfterWrite(window).build();
+    }
+
+    public void written(Long id) {
+        if (recentWrites != null && id != null)
+            recentWrites.put(id, Boolean.TRUE);
+    }
+
+    public boolean recentlyWritten(Long id) {
+        return recentWrites != null && id != null && recentWrites.getIfPresent(id) != null;
+    }
+}
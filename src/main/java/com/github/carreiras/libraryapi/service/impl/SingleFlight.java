@@ -0,0 +1,100 @@
+package com.github.carreiras.libraryapi.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa chamadas concorrentes com a mesma chave: a primeira executa a consulta e as demais
+ * aguardam e recebem o mesmo resultado ou a mesma exceção. A espera é limitada por
+ * {@code library.single-flight.timeout.<operação>} (padrão {@code library.single-flight.timeout}); ao
+ * esgotar, lança {@link QueryTimeoutException}. O contador {@code library.singleflight.calls} tem as
+ * tags {@code operation} e {@code result} (leader, coalesced, timeout).
+ */
+@Component
+public class SingleFlight {
+
+    public static final String CALLS_COUNTER = "library.singleflight.calls";
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Duration> timeouts = new ConcurrentHashMap<>();
+
+    private MeterRegistry registry;
+
+    private Environment environment;
+
+    public SingleFlight(MeterRegistry registry, Environment environment) {
+        this.registry = registry;
+        this.environment = environment;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> call) {
+        List<Object> flightKey = Arrays.asList(operation, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, flight);
+        if (leader != null)
+            return (T) await(operation, leader);
+
+        counter(operation, "leader").increment();
+        try {
+            T value = call.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private Object await(String operation, CompletableFuture<Object> leader) {
+        Duration timeout = timeouts.computeIfAbsent(operation, this::timeout);
+        try {
+            Object value = leader.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            counter(operation, "coalesced").increment();
+            return value;
+        } catch (TimeoutException ex) {
+            counter(operation, "timeout").increment();
+            throw new QueryTimeoutException("Tempo esgotado aguardando a consulta em andamento.", ex);
+        } catch (ExecutionException ex) {
+            counter(operation, "coalesced").increment();
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw (Error) ex.getCause();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Consulta interrompida.", ex);
+        }
+    }
+
+    private Duration timeout(String operation) {
+        String value = environment.getProperty("library.single-flight.timeout." + operation,
+                environment.getProperty("library.single-flight.timeout"));
+        return value == null ? DEFAULT_TIMEOUT : DurationStyle.detectAndParse(value);
+    }
+
+    private Counter counter(String operation, String result) {
+        return Counter.builder(CALLS_COUNTER)
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.carreiras.libraryapi.api;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExecutionModeConfigTest {
+
+    ApplicationContextRunner runner = new ApplicationContextRunner().withUserConfiguration(ExecutionModeConfig.class);
+
+    @Test
+    @DisplayName("Deve manter o pool do Tomcat no modo platform")
+    public void platformModeTest() {
+        runner.withPropertyValues("library.execution.mode=platform").run(context -> {
+            assertThat(context).doesNotHaveBean(ExecutionModeConfig.REQUEST_EXECUTOR);
+            assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+        });
+    }
+
+    @Test
+    @DisplayName("Deve criar um pool limitado para as requisições no modo async")
+    public void asyncModeTest() {
+        runner.withPropertyValues("library.execution.mode=async",
+                "library.execution.async.pool-size=4",
+                "library.execution.async.queue-capacity=8").run(context -> {
+            ThreadPoolTaskExecutor executor = context.getBean(ExecutionModeConfig.REQUEST_EXECUTOR, ThreadPoolTaskExecutor.class);
+            assertThat(executor.getMaxPoolSize()).isEqualTo(4);
+            assertThat(executor.getThreadPoolExecutor().getQueue().remainingCapacity()).isEqualTo(8);
+            assertThat(executor.getThreadNamePrefix()).isEqualTo("book-request-");
+            assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+        });
+    }
+
+    @Test
+    @DisplayName("Deve usar virtual threads no modo virtual e recusar a partida antes do JDK 21")
+    public void virtualModeTest() {
+        runner.withPropertyValues("library.execution.mode=virtual").run(context -> {
+            if (Runtime.version().feature() >= 21) {
+                assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+            } else {
+                assertThat(context).hasFailed();
+                assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(NoSuchMethodException.class);
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.carreiras.libraryapi.api;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles({"test", "metrics"})
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsEndpointTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Deve expor no formato Prometheus as métricas das operações, do pool JDBC e das consultas")
+    public void prometheusEndpointTest() throws Exception {
+        String json = "{\"title\":\"Métricas\",\"author\":\"Autor\",\"isbn\":\"metrics-001\"}";
+        mvc.perform(post("/api/books").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isCreated());
+        mvc.perform(post("/api/books").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/books").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("library_books_operations_seconds{operation=\"save\",outcome=\"created\",quantile=\"0.99\""),
+                        containsString("outcome=\"duplicate_isbn\""),
+                        containsString("result=\"created\""),
+                        containsString("result=\"duplicate_isbn\""),
+                        containsString("result=\"validation_error\""),
+                        containsString("hikaricp_connections_active"),
+                        containsString("hibernate_query_executions_total"))));
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.carreiras.libraryapi.api.mapper;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.api.mapper.impl.BookMapperImpl;
+import com.github.carreiras.libraryapi.api.mapper.impl.ModelMapperBookMapper;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookMapperTest {
+
+    BookMapper bookMapper = new BookMapperImpl();
+
+    BookMapper modelMapperBookMapper = new ModelMapperBookMapper(new ModelMapper());
+
+    @Test
+    @DisplayName("Deve converter o DTO em entidade do mesmo modo que o ModelMapper")
+    public void toEntityTest() {
+        BookDTO bookDTO = BookDTO.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+
+        Book book = bookMapper.toEntity(bookDTO);
+
+        assertThat(book).isEqualTo(modelMapperBookMapper.toEntity(bookDTO));
+        assertThat(book.getId()).isEqualTo(1l);
+        assertThat(book.getTitle()).isEqualTo("Livro");
+        assertThat(book.getAuthor()).isEqualTo("Autor");
+        assertThat(book.getIsbn()).isEqualTo("001");
+    }
+
+    @Test
+    @DisplayName("Deve converter a entidade em DTO do mesmo modo que o ModelMapper")
+    public void toDtoTest() {
+        Book book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+
+        BookDTO bookDTO = bookMapper.toDto(book);
+
+        assertThat(bookDTO).isEqualTo(modelMapperBookMapper.toDto(book));
+    }
+
+    @Test
+    @DisplayName("Deve manter nulos os campos não informados no filtro")
+    public void toEntityWithNullFieldsTest() {
+        BookDTO filter = BookDTO.builder().title("Livro").build();
+
+        assertThat(bookMapper.toEntity(filter)).isEqualTo(modelMapperBookMapper.toEntity(filter));
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = AsyncBookLookupController.class, properties = "library.execution.mode=async")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+public class AsyncBookLookupControllerTest {
+
+    static String BOOK_API = "/api/books";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    BookService bookService;
+
+    @Test
+    @DisplayName("Deve obter o livro no pool de requisições do modo async")
+    public void getBookAsyncTest() throws Exception {
+        AtomicReference<String> thread = new AtomicReference<>();
+        given(bookService.findById(1l)).willAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return Optional.of(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").version(2l).build());
+        });
+
+        MvcResult result = mockMvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + 1l)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("title").value("Livro"));
+        assertThat(thread.get()).startsWith("book-request-");
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 no modo async quando o livro não mudou")
+    public void getBookNotModifiedAsyncTest() throws Exception {
+        given(bookService.findById(1l))
+                .willReturn(Optional.of(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").version(2l).build()));
+
+        MvcResult result = mockMvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + 1l))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Deve retornar Resource Not Found no modo async quando o livro não existir")
+    public void bookNotFoundAsyncTest() throws Exception {
+        given(bookService.findById(anyLong())).willReturn(Optional.empty());
+
+        MvcResult result = mockMvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + 1)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import com.github.carreiras.libraryapi.service.BookChangeService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = BookChangeController.class, properties = {
+        "library.books.changes.poll-interval=20ms", "library.books.changes.max-duration=200ms"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+public class BookChangeControllerTest {
+
+    static String CHANGES_API = "/api/books/changes";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    BookChangeService changeService;
+
+    @Test
+    @DisplayName("Deve enviar as alterações posteriores ao offset como eventos SSE")
+    public void streamChangesTest() throws Exception {
+        Instant changedAt = Instant.parse("2021-03-01T10:00:00Z");
+        given(changeService.shardCount()).willReturn(1);
+        given(changeService.findAfter(new long[]{3}, 500)).willReturn(Arrays.asList(
+                BookChange.builder().id(4l).type(BookChange.Type.CREATED).bookId(10l).title("Livro").author("Autor")
+                        .isbn("001").version(0l).changedAt(changedAt).shard(0).build(),
+                BookChange.builder().id(5l).type(BookChange.Type.DELETED).bookId(11l).changedAt(changedAt).shard(0).build()));
+        given(changeService.findAfter(new long[]{5}, 500)).willReturn(Collections.emptyList());
+
+        MvcResult result = mockMvc.perform(get(CHANGES_API).param("since", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8)).contains(
+                "id:4\nevent:created\ndata:{\"offset\":4,\"type\":\"created\",\"id\":10,\"title\":\"Livro\","
+                        + "\"author\":\"Autor\",\"isbn\":\"001\",\"version\":0,\"changedAt\":\"2021-03-01T10:00:00Z\"}\n\n"
+                        + "id:5\nevent:deleted\ndata:{\"offset\":5,\"type\":\"deleted\",\"id\":11,"
+                        + "\"changedAt\":\"2021-03-01T10:00:00Z\"}\n\n");
+    }
+
+    @Test
+    @DisplayName("Deve usar como id do evento o offset de cada shard depois da alteração")
+    public void streamShardedChangesTest() throws Exception {
+        Instant changedAt = Instant.parse("2021-03-01T10:00:00Z");
+        given(changeService.shardCount()).willReturn(3);
+        given(changeService.findAfter(new long[]{3, 0, 7}, 500)).willReturn(Arrays.asList(
+                BookChange.builder().id(1l).type(BookChange.Type.CREATED).bookId(10l).changedAt(changedAt).shard(1).build(),
+                BookChange.builder().id(4l).type(BookChange.Type.UPDATED).bookId(11l).changedAt(changedAt).shard(0).build()));
+        given(changeService.findAfter(new long[]{4, 1, 7}, 500)).willReturn(Collections.emptyList());
+
+        MvcResult result = mockMvc.perform(get(CHANGES_API).header("Last-Event-ID", "3.0.7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8)).contains(
+                "id:3.1.7\nevent:created\ndata:{\"offset\":1,\"shard\":1,",
+                "id:4.1.7\nevent:updated\ndata:{\"offset\":4,\"shard\":0,");
+    }
+
+    @Test
+    @DisplayName("Deve retomar do Last-Event-ID e responder 410 quando o offset já expirou")
+    public void expiredOffsetTest() throws Exception {
+        given(changeService.shardCount()).willReturn(1);
+        given(changeService.isExpired(new long[]{7})).willReturn(true);
+
+        mockMvc.perform(get(CHANGES_API).param("since", "0").header("Last-Event-ID", "7"))
+                .andExpect(status().isGone());
+
+        verify(changeService, never()).findAfter(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve recusar um offset sem uma posição para cada shard")
+    public void invalidOffsetTest() throws Exception {
+        given(changeService.shardCount()).willReturn(3);
+
+        mockMvc.perform(get(CHANGES_API).param("since", "7"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(CHANGES_API).param("since", "1.-1.2"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,12 +1,16 @@
 package com.github.carreiras.libraryapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.github.carreiras.libraryapi.api.dto.BookDTO;
 import com.github.carreiras.libraryapi.api.exception.BusinessException;
 import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.repository.BookCursor;
 import com.github.carreiras.libraryapi.service.BookService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
+import org.mockito.ArgumentCaptor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,24 +20,41 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest
+@WebMvcTest(controllers = {BookController.class, BookLookupController.class})
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @ExtendWith(SpringExtension.class)
@@ -41,6 +62,8 @@ public class BookControllerTest {
 
     static String BOOK_API = "/api/books";
 
+    static MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     MockMvc mockMvc;
 
@@ -71,6 +94,44 @@ public class BookControllerTest {
                 .andExpect(jsonPath("isbn").value(bookDTO.getIsbn()));
     }
 
+    @Test
+    @DisplayName("Deve criar um livro recebendo e respondendo em Smile")
+    public void saveBookSmileTest() throws Exception {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        given(bookService.save(any(Book.class)))
+                .willReturn(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API)
+                .contentType(SMILE)
+                .accept(SMILE)
+                .content(smileMapper.writeValueAsBytes(createBook()));
+
+        MvcResult result = mockMvc
+                .perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+        BookDTO created = smileMapper.readValue(result.getResponse().getContentAsByteArray(), BookDTO.class);
+        assertThat(created.getId()).isEqualTo(1l);
+        assertThat(created.getIsbn()).isEqualTo("001");
+    }
+
+    @Test
+    @DisplayName("Deve obter um livro em CBOR quando solicitado no Accept")
+    public void getBookCborTest() throws Exception {
+        given(bookService.findById(1l))
+                .willReturn(Optional.of(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build()));
+
+        MvcResult result = mockMvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + 1l)).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        BookDTO book = new ObjectMapper(new CBORFactory()).readValue(result.getResponse().getContentAsByteArray(), BookDTO.class);
+        assertThat(book.getTitle()).isEqualTo("Livro");
+    }
+
     @Test
     @DisplayName("Deve lançar erro de validação quando não houver dados suficiente para criação do livro")
     public void createInvalidBookTest() throws Exception {
@@ -108,6 +169,48 @@ public class BookControllerTest {
                 .andExpect(jsonPath("errors[0]").value("Isbn já cadastrado."));
     }
 
+    @Test
+    @DisplayName("Deve salvar livros em lote informando os isbns duplicados")
+    public void saveBooksInBatchTest() throws Exception {
+        BookDTO bookDTO = createBook();
+        BookDTO duplicatedBookDTO = BookDTO.builder().title("Outro Livro").author("Outro Autor").isbn("002").build();
+        Book savedBook = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+
+        given(bookService.saveAll(anyList())).willReturn(Arrays.asList(savedBook));
+        String json = new ObjectMapper().writeValueAsString(Arrays.asList(bookDTO, duplicatedBookDTO));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("created", hasSize(1)))
+                .andExpect(jsonPath("created[0].id").value(1l))
+                .andExpect(jsonPath("duplicatedIsbns", hasSize(1)))
+                .andExpect(jsonPath("duplicatedIsbns[0]").value("002"));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de validação ao salvar em lote um livro sem dados suficientes")
+    public void saveInvalidBooksInBatchTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(Arrays.asList(createBook(), new BookDTO()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(3)));
+    }
+
     @Test
     @DisplayName("Deve obter informações de um livro")
     public void getBookDetailsTest() throws Exception {
@@ -131,6 +234,25 @@ public class BookControllerTest {
                 .andExpect(jsonPath("isbn").value(createBook().getIsbn()));
     }
 
+    @Test
+    @DisplayName("Deve retornar o ETag da versão e responder 304 quando o livro não mudou")
+    public void getBookNotModifiedTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").version(3l).build();
+        given(bookService.findById(1l)).willReturn(Optional.of(book));
+
+        mockMvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + 1l)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+
+        mockMvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + 1l))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     @DisplayName("Deve retornar Resource Not Found quando o livro não existir")
     public void bookNotFoundTest() throws Exception {
@@ -148,7 +270,7 @@ public class BookControllerTest {
     @Test
     @DisplayName("Deve deletar um livro")
     public void deleteBookTest() throws Exception {
-        given(bookService.findById(anyLong())).willReturn(Optional.of(Book.builder().id(1l).build()));
+        given(bookService.deleteById(1l, null)).willReturn(true);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .delete(BOOK_API.concat("/" + 1l));
@@ -158,6 +280,37 @@ public class BookControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    @DisplayName("Deve deletar livros em lote pelos ids informados")
+    public void deleteBooksByIdsTest() throws Exception {
+        given(bookService.deleteAll(eq(Arrays.asList(1l, 2l, 3l)), any(Book.class))).willReturn(2);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .delete(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 3]");
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("deleted").value(2));
+    }
+
+    @Test
+    @DisplayName("Deve deletar livros em lote pelo filtro e exigir ids ou filtro")
+    public void deleteBooksByFilterTest() throws Exception {
+        given(bookService.deleteAll(eq(null), eq(Book.builder().author("Autor").build()))).willReturn(5);
+
+        mockMvc
+                .perform(MockMvcRequestBuilders.delete(BOOK_API.concat("?author=Autor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("deleted").value(5));
+        mockMvc
+                .perform(MockMvcRequestBuilders.delete(BOOK_API))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Informe os ids ou um filtro para remover."));
+    }
+
     @Test
     @DisplayName("Deve retornar Resource Not Found quando não encontrar o livro para deletar")
     public void deleteInexistentBookTest() throws Exception {
@@ -178,7 +331,7 @@ public class BookControllerTest {
         Book updatingBook = Book.builder().id(1l).title("Outro Livro").author("Outro Autor").isbn("001").build();
         given(bookService.findById(1l)).willReturn(Optional.of(updatingBook));
         Book updatedBook = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
-        given(bookService.update(updatingBook)).willReturn(updatedBook);
+        given(bookService.update(any(Book.class))).willReturn(updatedBook);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + 1l))
@@ -193,7 +346,108 @@ public class BookControllerTest {
                 .andExpect(jsonPath("title").value(createBook().getTitle()))
                 .andExpect(jsonPath("author").value(createBook().getAuthor()))
                 .andExpect(jsonPath("isbn").value(createBook().getIsbn()));
-        ;
+        ArgumentCaptor<Book> updating = ArgumentCaptor.forClass(Book.class);
+        verify(bookService).update(updating.capture());
+        assertThat(updating.getValue()).isNotSameAs(updatingBook);
+        assertThat(updatingBook.getTitle()).isEqualTo("Outro Livro");
+        assertThat(updatingBook.getAuthor()).isEqualTo("Outro Autor");
+    }
+
+    @Test
+    @DisplayName("Deve retornar 412 ao atualizar um livro com If-Match de outra versão")
+    public void updateBookPreconditionFailedTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").version(2l).build();
+        given(bookService.findById(1l)).willReturn(Optional.of(book));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/" + 1l))
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .content(new ObjectMapper().writeValueAsString(createBook()))
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isPreconditionFailed());
+        verify(bookService, never()).update(any());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 412 ao deletar um livro com If-Match de outra versão")
+    public void deleteBookPreconditionFailedTest() throws Exception {
+        given(bookService.findById(1l)).willReturn(Optional.of(Book.builder().id(1l).version(2l).build()));
+
+        mockMvc
+                .perform(MockMvcRequestBuilders.delete(BOOK_API.concat("/" + 1l)).header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isPreconditionFailed());
+        verify(bookService, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar parcialmente um livro sem carregá-lo")
+    public void patchBookTest() throws Exception {
+        Book changes = Book.builder().id(1l).version(3l).title("Outro Livro").build();
+        given(bookService.patch(changes)).willReturn(true);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(BOOK_API.concat("/" + 1l))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Outro Livro\"}");
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        verify(bookService, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 412 na atualização parcial com versão divergente e 404 sem o livro")
+    public void patchBookNotUpdatedTest() throws Exception {
+        given(bookService.patch(any(Book.class))).willReturn(false);
+        given(bookService.findById(1l)).willReturn(Optional.of(Book.builder().id(1l).version(4l).build()));
+        given(bookService.findById(2l)).willReturn(Optional.empty());
+
+        mockMvc
+                .perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/" + 1l))
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"author\":\"Outro Autor\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc
+                .perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/" + 2l))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"author\":\"Outro Autor\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar a atualização parcial sem campos a alterar")
+    public void patchBookWithoutChangesTest() throws Exception {
+        mockMvc
+                .perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/" + 1l))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Informe o título ou o autor a atualizar."));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar parcialmente vários livros informando os não atualizados")
+    public void patchBooksInBatchTest() throws Exception {
+        given(bookService.patchAll(anyList())).willReturn(Arrays.asList(1l));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\":1,\"title\":\"Um\"},{\"id\":2,\"version\":5,\"author\":\"Dois\"}]");
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("updated", hasSize(1)))
+                .andExpect(jsonPath("updated[0]").value(1))
+                .andExpect(jsonPath("notUpdated[0]").value(2));
     }
 
     @Test
@@ -244,6 +498,184 @@ public class BookControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total quando solicitado")
+    public void findBookWithoutCountTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+
+        given(bookService.findSlice(any(Book.class), any(Pageable.class)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Livro&page=0&size=100&count=false"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("totalElements").doesNotExist())
+                .andExpect(jsonPath("last").value(false))
+                .andExpect(jsonPath("pageable.pageSize").value(100));
+
+        verify(bookService, never()).find(any(Book.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve listar livros por cursor retornando o cursor da próxima página")
+    public void findBookAfterCursorTest() throws Exception {
+        Book book = Book.builder().id(7l).title("Livro").author("Autor").isbn("001").build();
+
+        given(bookService.findAfter(any(Book.class), any(BookCursor.class), eq(1)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?after=&sort=title&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("totalElements").doesNotExist())
+                .andExpect(jsonPath("next").value(BookCursor.after("title", book).encode()));
+    }
+
+    @Test
+    @DisplayName("Deve retornar Bad Request para um cursor inválido")
+    public void findBookInvalidCursorTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?after=invalido"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Cursor inválido."));
+    }
+
+    @Test
+    @DisplayName("Deve retornar Bad Request para um tamanho de página por cursor acima do limite")
+    public void findBookAfterCursorSizeLimitTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?after=&size=1001"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Tamanho de página inválido."));
+        verify(bookService, never()).findAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros por título e autor")
+    public void searchBookTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+
+        given(bookService.search(eq("livro autor"), any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 20), 1));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/search?q=livro autor&page=0&size=20"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(1l))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve retornar as contagens de livros por autor")
+    public void facetsTest() throws Exception {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("Machado de Assis", 2l);
+        counts.put("Mário de Andrade", 1l);
+        given(bookService.facets("author", "Ma", 5)).willReturn(counts);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/facets?field=author&prefix=Ma&size=5"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(jsonPath("[0].value").value("Machado de Assis"))
+                .andExpect(jsonPath("[0].count").value(2))
+                .andExpect(jsonPath("[1].value").value("Mário de Andrade"));
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros filtrados em NDJSON")
+    public void exportBooksAsNdjsonTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+        willAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(1);
+            action.accept(book);
+            return null;
+        }).given(bookService).export(any(Book.class), any());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/export?title=Livro"));
+
+        MvcResult result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1,\"title\":\"Livro\",\"author\":\"Autor\",\"isbn\":\"001\"}\n"));
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros filtrados em CSV")
+    public void exportBooksAsCsvTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Livro, volume 1").author("Autor").isbn("001").build();
+        willAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(1);
+            action.accept(book);
+            return null;
+        }).given(bookService).export(any(Book.class), any());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/export"))
+                .accept("text/csv");
+
+        MvcResult result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id,title,author,isbn\n1,\"Livro, volume 1\",Autor,001\n"));
+    }
+
+    @Test
+    @DisplayName("Deve colocar entre aspas no CSV os valores com quebra de linha")
+    public void exportBooksAsCsvLineBreakTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Livro\r\nvolume 1").author("Autor\rSegundo").isbn("001").build();
+        willAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(1);
+            action.accept(book);
+            return null;
+        }).given(bookService).export(any(Book.class), any());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/export"))
+                .accept("text/csv");
+
+        MvcResult result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,title,author,isbn\n1,\"Livro\r\nvolume 1\",\"Autor\rSegundo\",001\n"));
+    }
+
     private BookDTO createBook() {
         return BookDTO.builder().title("Livro").author("Autor").isbn("001").build();
     }
@@ -0,0 +1,201 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.carreiras.libraryapi.api.dto.LoanDTO;
+import com.github.carreiras.libraryapi.api.dto.ReturnedLoanDTO;
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import com.github.carreiras.libraryapi.service.BookService;
+import com.github.carreiras.libraryapi.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = LoanController.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+public class LoanControllerTest {
+
+    static String LOAN_API = "/api/loans";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    BookService bookService;
+
+    @Test
+    @DisplayName("Deve realizar um empréstimo")
+    public void createLoanTest() throws Exception {
+        LoanDTO loanDTO = LoanDTO.builder().isbn("001").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(loanDTO);
+        Book book = Book.builder().id(1l).isbn("001").build();
+        given(bookService.getBookByIsbn("001")).willReturn(Optional.of(book));
+        given(loanService.save(any(Loan.class))).willReturn(Loan.builder().id(1l).book(book).customer("Fulano").build());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(LOAN_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(content().string("1"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao tentar emprestar um livro inexistente")
+    public void invalidIsbnCreateLoanTest() throws Exception {
+        LoanDTO loanDTO = LoanDTO.builder().isbn("001").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(loanDTO);
+        given(bookService.getBookByIsbn("001")).willReturn(Optional.empty());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(LOAN_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)))
+                .andExpect(jsonPath("errors[0]").value("Livro não encontrado para o isbn informado."));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao tentar emprestar um livro já emprestado")
+    public void loanedBookErrorOnCreateLoanTest() throws Exception {
+        LoanDTO loanDTO = LoanDTO.builder().isbn("001").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(loanDTO);
+        given(bookService.getBookByIsbn("001")).willReturn(Optional.of(Book.builder().id(1l).isbn("001").build()));
+        given(loanService.save(any(Loan.class))).willThrow(new BusinessException("Livro já emprestado."));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(LOAN_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)))
+                .andExpect(jsonPath("errors[0]").value("Livro já emprestado."));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao tentar emprestar para um cliente com nome acima do tamanho da coluna")
+    public void customerTooLongCreateLoanTest() throws Exception {
+        LoanDTO loanDTO = LoanDTO.builder().isbn("001").customer(String.join("", Collections.nCopies(101, "a"))).build();
+        String json = new ObjectMapper().writeValueAsString(loanDTO);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(LOAN_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)));
+
+        verify(loanService, never()).save(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve devolver um livro")
+    public void returnBookTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(ReturnedLoanDTO.builder().returned(true).build());
+        Loan loan = Loan.builder().id(1l).customer("Fulano").book(Book.builder().id(1l).isbn("001").build()).build();
+        given(loanService.getById(anyLong())).willReturn(Optional.of(loan));
+        given(loanService.update(loan)).willReturn(loan);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("returned").value(true));
+
+        verify(loanService).update(loan);
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 ao tentar devolver um livro sem empréstimo")
+    public void returnInexistentBookTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(ReturnedLoanDTO.builder().returned(true).build());
+        given(loanService.getById(anyLong())).willReturn(Optional.empty());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos")
+    public void findLoansTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+        Loan loan = Loan.builder().id(1l).customer("Fulano").book(book).loanDate(LocalDate.now()).returned(false).build();
+        given(loanService.find(any(), any(), any(Pageable.class)))
+                .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?isbn=001&customer=Fulano&page=0&size=10"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].isbn").value("001"))
+                .andExpect(jsonPath("content[0].book.title").value("Livro"))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+}
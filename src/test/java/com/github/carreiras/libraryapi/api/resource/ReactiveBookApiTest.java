@@ -0,0 +1,141 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import com.github.carreiras.libraryapi.service.BookChangeService;
+import com.github.carreiras.libraryapi.service.impl.BookFacets;
+import com.github.carreiras.libraryapi.service.impl.BookMetrics;
+import com.github.carreiras.libraryapi.service.impl.BookSearchIndex;
+import com.github.carreiras.libraryapi.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ActiveProfiles({"test", "reactive"})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-api;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-api?options=DB_CLOSE_DELAY=-1"
+})
+class ReactiveBookApiTest {
+
+    static String BOOK_API = "/api/books";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    BookSearchIndex searchIndex;
+
+    @Autowired
+    BookFacets facets;
+
+    @Autowired
+    BookChangeService changes;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Deve criar, consultar, atualizar e deletar um livro pelo modo reativo")
+    public void bookLifecycleTest() {
+        BookDTO created = webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDTO.builder().title("Livro").author("Autor").isbn("reativo").build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDTO.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(created.getId()).isNotNull();
+
+        webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDTO.builder().title("Outro").author("Autor").isbn("reativo").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("errors[0]").isEqualTo("Isbn já cadastrado.");
+
+        webTestClient.put().uri(BOOK_API + "/" + created.getId() + "?title=Livro Novo&author=Autor Novo")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody().jsonPath("title").isEqualTo("Livro Novo");
+
+        webTestClient.put().uri(BOOK_API + "/" + created.getId() + "?title=Outro&author=Outro")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        webTestClient.get().uri(BOOK_API + "?title=novo&page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("content[0].isbn").isEqualTo("reativo");
+
+        webTestClient.delete().uri(BOOK_API + "/" + created.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.get().uri(BOOK_API + "/" + created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve refletir as gravações do modo reativo no cache, na busca, nas contagens, no outbox e nas métricas")
+    public void reactiveWritesHooksTest() {
+        long offset = changes.findAfter(new long[]{0}, 1000).stream().mapToLong(BookChange::getId).max().orElse(0);
+        BookDTO created = webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDTO.builder().title("Quincas Borba").author("Machado").isbn("reativo-hooks").build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDTO.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(searchIndex.search("quincas")).containsExactly(created.getId());
+        assertThat(facets.top(BookFacets.Field.AUTHOR, "Mach", 10)).containsEntry("Machado", 1l);
+
+        cacheManager.getCache(BookServiceImpl.BOOKS_CACHE).put(created.getId(), Book.builder().id(created.getId()).build());
+        webTestClient.put().uri(BOOK_API + "/" + created.getId() + "?title=Dom Casmurro&author=Machado")
+                .exchange()
+                .expectStatus().isOk();
+        assertThat(cacheManager.getCache(BookServiceImpl.BOOKS_CACHE).get(created.getId())).isNull();
+        assertThat(searchIndex.search("quincas")).isEmpty();
+        assertThat(searchIndex.search("casmurro")).containsExactly(created.getId());
+
+        webTestClient.delete().uri(BOOK_API + "/" + created.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        assertThat(searchIndex.search("casmurro")).isEmpty();
+        assertThat(facets.top(BookFacets.Field.AUTHOR, "Mach", 10)).doesNotContainKey("Machado");
+
+        assertThat(changes.findAfter(new long[]{offset}, 10))
+                .extracting(BookChange::getType, BookChange::getBookId, BookChange::getVersion)
+                .containsExactly(
+                        tuple(BookChange.Type.CREATED, created.getId(), 0l),
+                        tuple(BookChange.Type.UPDATED, created.getId(), 1l),
+                        tuple(BookChange.Type.DELETED, created.getId(), null));
+        assertThat(meterRegistry.get(BookMetrics.OPERATIONS_TIMER).tag("operation", "save").tag("outcome", "created").timer().count())
+                .isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get(BookMetrics.OPERATIONS_TIMER).tag("operation", "delete").tag("outcome", "deleted").timer().count())
+                .isGreaterThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.carreiras.libraryapi.api.resource;
+
+import com.github.carreiras.libraryapi.api.dto.BookDTO;
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.ReactiveBookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@WebFluxTest(controllers = ReactiveBookController.class)
+@ActiveProfiles({"test", "reactive"})
+public class ReactiveBookControllerTest {
+
+    static String BOOK_API = "/api/books";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @MockBean
+    ReactiveBookService bookService;
+
+    @Test
+    @DisplayName("Deve salvar um livro com sucesso")
+    public void saveBookTest() {
+        given(bookService.save(any(Book.class)))
+                .willReturn(Mono.just(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build()));
+
+        webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createBook())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("id").isEqualTo(1)
+                .jsonPath("isbn").isEqualTo("001");
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de validação com o mesmo payload do modo servlet")
+    public void createInvalidBookTest() {
+        webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookDTO())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors.length()").isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao tentar cadastrar um livro com isbn já utilizado por outro")
+    public void createBookWithDuplicatedIsbnTest() {
+        given(bookService.save(any(Book.class))).willReturn(Mono.error(new BusinessException("Isbn já cadastrado.")));
+
+        webTestClient.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createBook())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Isbn já cadastrado.");
+    }
+
+    @Test
+    @DisplayName("Deve retornar Resource Not Found quando o livro não existir")
+    public void bookNotFoundTest() {
+        given(bookService.findById(anyLong())).willReturn(Mono.empty());
+
+        webTestClient.get().uri(BOOK_API.concat("/1"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve retornar Resource Not Found quando não encontrar o livro para deletar")
+    public void deleteInexistentBookTest() {
+        given(bookService.deleteById(anyLong())).willReturn(Mono.just(false));
+
+        webTestClient.delete().uri(BOOK_API.concat("/1"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve atualizar um livro com os parâmetros da requisição, como no modo servlet")
+    public void updateBookTest() {
+        given(bookService.findById(1l))
+                .willReturn(Mono.just(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").version(2l).build()));
+        given(bookService.update(any(Book.class))).willAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            return Mono.just(Book.builder().id(book.getId()).title(book.getTitle()).author(book.getAuthor())
+                    .isbn(book.getIsbn()).version(book.getVersion() + 1).build());
+        });
+
+        webTestClient.put().uri(BOOK_API.concat("/1?title=Outro&author=Outro Autor"))
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody()
+                .jsonPath("title").isEqualTo("Outro")
+                .jsonPath("author").isEqualTo("Outro Autor")
+                .jsonPath("isbn").isEqualTo("001");
+    }
+
+    @Test
+    @DisplayName("Deve responder 412 quando o If-Match não coincidir com a versão do livro")
+    public void updateBookPreconditionFailedTest() {
+        given(bookService.findById(1l))
+                .willReturn(Mono.just(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").version(2l).build()));
+
+        webTestClient.put().uri(BOOK_API.concat("/1?title=Outro&author=Outro Autor"))
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        verify(bookService, never()).update(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros")
+    public void findBookTest() {
+        Book book = Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+        given(bookService.find(any(Book.class), any(Pageable.class)))
+                .willReturn(Mono.just(new PageImpl<>(Arrays.asList(book), PageRequest.of(0, 100), 1)));
+
+        webTestClient.get().uri(BOOK_API.concat("?title=Livro&page=0&size=100"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content.length()").isEqualTo(1)
+                .jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("pageable.pageSize").isEqualTo(100);
+    }
+
+    private BookDTO createBook() {
+        return BookDTO.builder().title("Livro").author("Autor").isbn("001").build();
+    }
+}
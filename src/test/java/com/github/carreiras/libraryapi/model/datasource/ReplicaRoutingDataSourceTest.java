@@ -0,0 +1,92 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.repository.BookRepository;
+import com.github.carreiras.libraryapi.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingDataSourceTest.PRIMARY,
+        "library.datasource.replicas=" + ReplicaRoutingDataSourceTest.REPLICA_1 + "," + ReplicaRoutingDataSourceTest.REPLICA_2,
+        "library.datasource.replica-selection=round-robin",
+        "library.datasource.read-your-writes=1m"})
+class ReplicaRoutingDataSourceTest {
+
+    static final String PRIMARY = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_1 = "jdbc:h2:mem:routing-replica-1;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_2 = "jdbc:h2:mem:routing-replica-2;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    BookService bookService;
+
+    JdbcTemplate primary;
+
+    List<JdbcTemplate> replicas;
+
+    @BeforeEach
+    public void setUp() {
+        primary = jdbc(PRIMARY);
+        replicas = Arrays.asList(jdbc(REPLICA_1), jdbc(REPLICA_2));
+        List<String> schema = primary.queryForList("SCRIPT NODATA", String.class);
+        for (JdbcTemplate replica : replicas) {
+            replica.execute("DROP ALL OBJECTS");
+            schema.forEach(replica::execute);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve ler das réplicas em rodízio e gravar no primário")
+    public void routeReadsToReplicasTest() {
+        replicas.get(0).update("INSERT INTO book (id, title, author, isbn, version) VALUES (900001, 'Réplica 1', 'Autor', 'r-001', 0)");
+        replicas.get(1).update("INSERT INTO book (id, title, author, isbn, version) VALUES (900001, 'Réplica 2', 'Autor', 'r-001', 0)");
+
+        List<String> titles = Arrays.asList(bookRepository.findById(900001L), bookRepository.findById(900001L))
+                .stream()
+                .map(book -> book.map(Book::getTitle).orElse(null))
+                .collect(Collectors.toList());
+        Book saved = bookRepository.save(Book.builder().title("Primário").author("Autor").isbn("p-001").build());
+
+        assertThat(titles).containsExactlyInAnyOrder("Réplica 1", "Réplica 2");
+        assertThat(count(primary, saved.getId())).isEqualTo(1);
+        assertThat(count(replicas.get(0), saved.getId())).isZero();
+        assertThat(count(replicas.get(1), saved.getId())).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário o livro recém-criado enquanto as réplicas não o receberam")
+    public void readYourWritesTest() {
+        Book saved = bookService.save(Book.builder().title("Recente").author("Autor").isbn("ryw-001").build());
+
+        assertThat(bookRepository.findById(saved.getId())).isEmpty();
+        assertThat(bookService.findById(saved.getId())).hasValueSatisfying(book ->
+                assertThat(book.getTitle()).isEqualTo("Recente"));
+    }
+
+    private static JdbcTemplate jdbc(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    }
+
+    private static int count(JdbcTemplate jdbc, Long id) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM book WHERE id = ?", Integer.class, id);
+    }
+}
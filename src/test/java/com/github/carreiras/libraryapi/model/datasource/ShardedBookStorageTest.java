@@ -0,0 +1,186 @@
+package com.github.carreiras.libraryapi.model.datasource;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import com.github.carreiras.libraryapi.service.BookChangeService;
+import com.github.carreiras.libraryapi.service.BookService;
+import com.github.carreiras.libraryapi.service.impl.BookShards;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "library.sharding.shards="
+        + "jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1")
+class ShardedBookStorageTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    ShardMap shardMap;
+
+    @Autowired
+    ShardRebalancer rebalancer;
+
+    @Autowired
+    BookShards shards;
+
+    @Autowired
+    BookChangeService changeService;
+
+    @Test
+    @DisplayName("Deve gravar cada livro no shard do seu isbn e encontrá-lo pelo id")
+    public void routeByIsbnTest() {
+        List<Book> books = saveBooks("routing", 30);
+
+        for (Book book : books) {
+            int shard = shardMap.shardOf(ShardMap.bucketOf(book.getIsbn()));
+            assertThat(ShardMap.bucketOf(book.getId())).isEqualTo(ShardMap.bucketOf(book.getIsbn()));
+            for (int other = 0; other < shardMap.shardCount(); other++)
+                assertThat(count(other, book.getId())).isEqualTo(other == shard ? 1 : 0);
+            assertThat(bookService.findById(book.getId())).isPresent();
+        }
+        assertThat(books.stream().map(book -> shardMap.shardOf(ShardMap.bucketOf(book.getIsbn()))).distinct())
+                .hasSize(shardMap.shardCount());
+    }
+
+    @Test
+    @DisplayName("Deve buscar em todos os shards e intercalar os resultados na ordem pedida")
+    public void fanOutFindTest() {
+        List<String> titles = saveBooks("merge", 25).stream()
+                .map(Book::getTitle)
+                .sorted()
+                .collect(Collectors.toList());
+
+        Page<Book> page = bookService.find(Book.builder().author("merge").build(),
+                PageRequest.of(2, 5, Sort.by("title")));
+
+        assertThat(page.getTotalElements()).isEqualTo(25);
+        assertThat(page.getContent()).extracting(Book::getTitle).containsExactlyElementsOf(titles.subList(10, 15));
+    }
+
+    @Test
+    @DisplayName("Deve intercalar com a mesma ordem dos shards, com nulos primeiro, e recusar páginas profundas")
+    public void fanOutOrderTest() {
+        List<Book> books = saveBooks("nulls", 12);
+        List<Long> untitled = books.subList(0, 3).stream().map(Book::getId).sorted().collect(Collectors.toList());
+        for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+            JdbcTemplate jdbc = new JdbcTemplate(shardMap.dataSource(shard));
+            untitled.forEach(id -> jdbc.update("update book set title = null where id = ?", id));
+        }
+
+        Page<Book> page = bookService.find(Book.builder().author("nulls").build(),
+                PageRequest.of(0, 5, Sort.by(Sort.Order.desc("title"), Sort.Order.asc("id"))));
+        Throwable deepPage = catchThrowable(() -> bookService.find(Book.builder().author("nulls").build(),
+                PageRequest.of(BookShards.MAX_OFFSET / 20, 20)));
+
+        assertThat(page.getContent()).extracting(Book::getTitle).containsExactly(null, null, null, "nulls-11", "nulls-10");
+        assertThat(page.getContent().subList(0, 3)).extracting(Book::getId).containsExactlyElementsOf(untitled);
+        assertThat(deepPage).isInstanceOf(BusinessException.class).hasMessage(BookShards.DEEP_PAGE);
+    }
+
+    @Test
+    @DisplayName("Deve executar buscas concorrentes em todos os shards ao mesmo tempo")
+    public void concurrentFanOutTest() throws Exception {
+        int searches = 4;
+        CountDownLatch running = new CountDownLatch(searches * shardMap.shardCount());
+        ExecutorService callers = Executors.newFixedThreadPool(searches);
+        try {
+            List<Future<List<Boolean>>> results = IntStream.range(0, searches)
+                    .mapToObj(search -> callers.submit(() -> shards.fanOut(shard -> {
+                        running.countDown();
+                        try {
+                            return running.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    })))
+                    .collect(Collectors.toList());
+
+            for (Future<List<Boolean>> result : results)
+                assertThat(result.get(10, TimeUnit.SECONDS)).containsOnly(true);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar as alterações no outbox do shard de cada livro e intercalá-las na leitura")
+    public void shardedOutboxTest() {
+        long[] offsets = new long[shardMap.shardCount()];
+        for (BookChange change : changeService.findAfter(offsets, 10_000))
+            offsets[change.getShard()] = change.getId();
+        List<Book> books = saveBooks("outbox", 12);
+
+        List<BookChange> changes = changeService.findAfter(offsets, 10_000);
+
+        assertThat(changes).extracting(BookChange::getBookId)
+                .containsExactlyInAnyOrderElementsOf(books.stream().map(Book::getId).collect(Collectors.toList()));
+        assertThat(changes).allSatisfy(change -> assertThat(change.getShard())
+                .isEqualTo(shardMap.shardOf(ShardMap.bucketOf(change.getBookId()))));
+        assertThat(changes).extracting(BookChange::getChangedAt).isSorted();
+        assertThat(changes.stream().map(BookChange::getShard).distinct()).hasSize(shardMap.shardCount());
+        assertThat(changeService.isExpired(offsets)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve mover os buckets e os livros ao redistribuir e ao incluir um shard")
+    public void rebalanceTest() {
+        rebalancer.rebalance(2);
+        List<Book> books = saveBooks("rebalance", 40);
+        assertThat(shardMap.buckets(2)).isEmpty();
+        assertThat(new JdbcTemplate(shardMap.dataSource(2)).queryForObject("select count(*) from book", Long.class)).isZero();
+
+        int moved = rebalancer.rebalance(3);
+
+        assertThat(moved).isEqualTo(ShardMap.BUCKETS / 3);
+        assertThat(new JdbcTemplate(shardMap.dataSource(2)).queryForObject("select count(*) from book", Long.class)).isPositive();
+        for (Book book : books) {
+            int shard = shardMap.shardOf(ShardMap.bucketOf(book.getId()));
+            assertThat(count(shard, book.getId())).isEqualTo(1);
+            assertThat(bookService.getBookByIsbn(book.getIsbn())).hasValueSatisfying(found ->
+                    assertThat(found.getId()).isEqualTo(book.getId()));
+        }
+        assertThat(bookService.find(Book.builder().author("rebalance").build(), PageRequest.of(0, 100)).getTotalElements())
+                .isEqualTo(40);
+        assertThat(saveBooks("rebalance-after", 10)).allSatisfy(book ->
+                assertThat(count(shardMap.shardOf(ShardMap.bucketOf(book.getId())), book.getId())).isEqualTo(1));
+    }
+
+    private List<Book> saveBooks(String author, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> bookService.save(Book.builder()
+                        .title(String.format("%s-%02d", author, (i * 7) % count))
+                        .author(author)
+                        .isbn(author + "-isbn-" + i)
+                        .build()))
+                .collect(Collectors.toList());
+    }
+
+    private long count(int shard, Long id) {
+        return new JdbcTemplate(shardMap.dataSource(shard)).queryForObject("select count(*) from book where id = ?", Long.class, id);
+    }
+}
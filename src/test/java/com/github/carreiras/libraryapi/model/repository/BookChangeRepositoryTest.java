@@ -0,0 +1,58 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class BookChangeRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookChangeRepository changeRepository;
+
+    @Test
+    @DisplayName("Deve listar as alterações posteriores ao offset em ordem")
+    public void findAfterOffsetTest() {
+        BookChange first = entityManager.persist(createChange(Instant.now()));
+        BookChange second = entityManager.persist(createChange(Instant.now()));
+        BookChange third = entityManager.persist(createChange(Instant.now()));
+
+        List<BookChange> changes = changeRepository.findByIdGreaterThanOrderById(first.getId(), PageRequest.of(0, 10));
+
+        assertThat(changes).extracting(BookChange::getId).containsExactly(second.getId(), third.getId());
+    }
+
+    @Test
+    @DisplayName("Deve remover as alterações antigas mantendo a última")
+    public void purgeKeepsLastChangeTest() {
+        Instant old = Instant.now().minusSeconds(3600);
+        entityManager.persist(createChange(old));
+        BookChange last = entityManager.persist(createChange(old));
+
+        int purged = changeRepository.deleteByChangedAtBefore(Instant.now());
+
+        assertThat(purged).isEqualTo(1);
+        assertThat(changeRepository.findMinId()).isEqualTo(last.getId());
+    }
+
+    private BookChange createChange(Instant changedAt) {
+        return BookChange.builder().type(BookChange.Type.CREATED).bookId(1l).isbn("123").changedAt(changedAt).build();
+    }
+}
@@ -7,12 +7,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @ActiveProfiles("test")
@@ -36,6 +49,70 @@ class BookRepositoryTest {
         assertThat(exists).isTrue();
     }
 
+    @Test
+    @DisplayName("Deve rejeitar a atualização de um livro com versão desatualizada")
+    public void rejectStaleVersionTest() {
+        Book book = entityManager.persistFlushFind(createBook());
+        Book stale = Book.builder()
+                .id(book.getId()).title("Outro").author(book.getAuthor()).isbn(book.getIsbn())
+                .version(book.getVersion() - 1)
+                .build();
+
+        Throwable exception = catchThrowable(() -> bookRepository.save(stale));
+
+        assertThat(book.getVersion()).isEqualTo(0);
+        assertThat(exception).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar parcialmente um livro em um único UPDATE conferindo a versão")
+    public void patchTest() {
+        Book book = entityManager.persistFlushFind(createBook());
+
+        int stale = bookRepository.patch(Book.builder().id(book.getId()).version(book.getVersion() + 1).title("Outro").build());
+        int patched = bookRepository.patch(Book.builder().id(book.getId()).version(book.getVersion()).title("Outro").build());
+        int missing = bookRepository.patch(Book.builder().id(book.getId() + 1).title("Outro").build());
+        entityManager.clear();
+
+        Book found = entityManager.find(Book.class, book.getId());
+        assertThat(stale).isEqualTo(0);
+        assertThat(patched).isEqualTo(1);
+        assertThat(missing).isEqualTo(0);
+        assertThat(found.getTitle()).isEqualTo("Outro");
+        assertThat(found.getAuthor()).isEqualTo("Autor");
+        assertThat(found.getVersion()).isEqualTo(book.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("Deve remover um livro pelo id em um único DELETE conferindo a versão")
+    public void deleteByIdAndVersionTest() {
+        Book book = entityManager.persistFlushFind(createBook());
+
+        int stale = bookRepository.deleteByIdAndVersion(book.getId(), book.getVersion() + 1);
+        int deleted = bookRepository.deleteByIdAndVersion(book.getId(), null);
+        int missing = bookRepository.deleteByIdAndVersion(book.getId(), null);
+
+        assertThat(stale).isEqualTo(0);
+        assertThat(deleted).isEqualTo(1);
+        assertThat(missing).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve selecionar id e isbn pelo filtro e remover os livros por lote de ids")
+    public void bulkDeleteTest() {
+        Book first = entityManager.persist(Book.builder().title("Livro").author("Autor").isbn("1").build());
+        Book second = entityManager.persist(Book.builder().title("Livro").author("Outro").isbn("2").build());
+        entityManager.persist(Book.builder().title("Livro").author("Autor").isbn("3").build());
+        entityManager.flush();
+
+        Map<Long, String> isbns = bookRepository.findIsbnById(Book.builder().title("livro").build(), Arrays.asList(first.getId(), second.getId()));
+        int deleted = bookRepository.deleteByIdIn(isbns.keySet());
+
+        assertThat(isbns).containsOnlyKeys(first.getId(), second.getId()).containsValues("1", "2");
+        assertThat(deleted).isEqualTo(2);
+        assertThat(bookRepository.findIsbnById(Book.builder().author("autor").build(), null).values()).containsExactly("3");
+    }
+
     @Test
     @DisplayName("Deve retornar false quando não existir um livro na base como Isbn informado")
     public void returnFalseWhenIsbnExistsTest() {
@@ -44,6 +121,122 @@ class BookRepositoryTest {
         assertThat(exists).isFalse();
     }
 
+    @Test
+    @DisplayName("Deve retornar apenas os Isbns informados que existem na base")
+    public void findIsbnByIsbnInTest() {
+        entityManager.persist(createBook());
+
+        List<String> isbns = bookRepository.findIsbnByIsbnIn(Arrays.asList("123", "456"));
+
+        assertThat(isbns).containsExactly("123");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer em stream apenas os livros que atendem ao filtro")
+    public void streamAllTest() {
+        entityManager.persist(createBook());
+        entityManager.persist(Book.builder().title("Outro").author("Fulano").isbn("456").build());
+
+        try (Stream<Book> books = bookRepository.streamAll("livro", null, null)) {
+            assertThat(books.map(Book::getIsbn)).containsExactly("123");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve listar livros a partir do cursor, desempatando pelo Id")
+    public void findAfterTest() {
+        Book first = Book.builder().title("A").author("Autor").isbn("1").build();
+        Book second = Book.builder().title("B").author("Autor").isbn("2").build();
+        Book third = Book.builder().title("B").author("Autor").isbn("3").build();
+        Book fourth = Book.builder().title("C").author("Outro").isbn("4").build();
+        entityManager.persist(fourth);
+        entityManager.persist(second);
+        entityManager.persist(third);
+        entityManager.persist(first);
+
+        List<Book> page = bookRepository.findAfter(new Book(), BookCursor.first("title"), 2);
+        List<Book> nextPage = bookRepository.findAfter(new Book(), BookCursor.after("title", page.get(1)), 2);
+
+        assertThat(page).extracting(Book::getTitle).containsExactly("A", "B");
+        assertThat(nextPage).extracting(Book::getTitle).containsExactly("B", "C");
+        assertThat(nextPage.get(0).getId()).isGreaterThan(page.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar o filtro na listagem por cursor")
+    public void findAfterWithFilterTest() {
+        entityManager.persist(Book.builder().title("Livro").author("Autor").isbn("1").build());
+        entityManager.persist(Book.builder().title("Outro").author("Autor").isbn("2").build());
+
+        List<Book> page = bookRepository.findAfter(Book.builder().title("LIV").build(), BookCursor.first("id"), 10);
+
+        assertThat(page).extracting(Book::getIsbn).containsExactly("1");
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros em fatias sem contar o total")
+    public void findSliceTest() {
+        entityManager.persist(Book.builder().title("Livro B").author("Autor").isbn("1").build());
+        entityManager.persist(Book.builder().title("Livro A").author("Autor").isbn("2").build());
+        entityManager.persist(Book.builder().title("Outro").author("Autor").isbn("3").build());
+
+        Slice<Book> first = bookRepository.findSlice(Book.builder().title("livro").build(), PageRequest.of(0, 1, Sort.by("title")));
+        Slice<Book> last = bookRepository.findSlice(Book.builder().title("livro").build(), PageRequest.of(1, 1, Sort.by("title")));
+
+        assertThat(first.getContent()).extracting(Book::getTitle).containsExactly("Livro A");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting(Book::getTitle).containsExactly("Livro B");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros em páginas projetadas, fora do contexto de persistência")
+    public void findPageTest() {
+        entityManager.persist(Book.builder().title("Livro B").author("Autor").isbn("1").build());
+        entityManager.persist(Book.builder().title("Livro A").author("Autor").isbn("2").build());
+        entityManager.persist(Book.builder().title("Outro").author("Autor").isbn("3").build());
+        entityManager.flush();
+        entityManager.clear();
+
+        Page<Book> page = bookRepository.findPage(Book.builder().title("livro").build(), PageRequest.of(0, 1, Sort.by("title")));
+        Optional<Book> found = bookRepository.findDetachedById(page.getContent().get(0).getId());
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Book::getTitle, Book::getIsbn, Book::getVersion).containsExactly(tuple("Livro A", "2", 0L));
+        assertThat(found).hasValueSatisfying(book -> assertThat(book.getTitle()).isEqualTo("Livro A"));
+        assertThat(entityManager.getEntityManager().contains(page.getContent().get(0))).isFalse();
+        assertThat(entityManager.getEntityManager().contains(found.get())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros pelo texto no título ou no autor")
+    public void searchPageTest() {
+        entityManager.persist(Book.builder().title("Dom Casmurro").author("Machado de Assis").isbn("1").build());
+        entityManager.persist(Book.builder().title("Memórias de Machado").author("Outro").isbn("2").build());
+        entityManager.persist(Book.builder().title("Iracema").author("José de Alencar").isbn("3").build());
+        entityManager.flush();
+
+        Page<Book> page = bookRepository.searchPage("machado", PageRequest.of(0, 1, Sort.by("isbn")));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Book::getIsbn).containsExactly("1");
+    }
+
+    @Test
+    @DisplayName("Deve contar os livros por autor entre os que começam com o prefixo")
+    public void countByTest() {
+        entityManager.persist(Book.builder().title("A").author("Machado de Assis").isbn("1").build());
+        entityManager.persist(Book.builder().title("B").author("Machado de Assis").isbn("2").build());
+        entityManager.persist(Book.builder().title("C").author("Mário de Andrade").isbn("3").build());
+        entityManager.persist(Book.builder().title("D").author("José de Alencar").isbn("4").build());
+        entityManager.persist(Book.builder().title("E").author("M%").isbn("5").build());
+
+        Map<String, Long> counts = bookRepository.countBy("author", "M", 2);
+
+        assertThat(counts).containsExactly(entry("Machado de Assis", 2l), entry("M%", 1l));
+        assertThat(bookRepository.countBy("author", "M%", null)).containsExactly(entry("M%", 1l));
+    }
+
     @Test
     @DisplayName("Deve obter um livro por Id.")
     public void findByIdTest() {
@@ -65,6 +258,18 @@ class BookRepositoryTest {
         assertThat(savedBook.getId()).isNotNull();
     }
 
+    @Test
+    @DisplayName("Deve recusar um livro com Isbn já cadastrado.")
+    public void saveDuplicatedIsbnTest() {
+        entityManager.persist(createBook());
+
+        Throwable exception = catchThrowable(() -> bookRepository.saveAndFlush(createBook()));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(((DataIntegrityViolationException) exception).getMostSpecificCause().getMessage().toLowerCase())
+                .contains(Book.ISBN_CONSTRAINT);
+    }
+
     @Test
     @DisplayName("Deve deletar um livro.")
     public void deleteBookTest() {
@@ -0,0 +1,79 @@
+package com.github.carreiras.libraryapi.model.repository;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class LoanRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve verificar se existe empréstimo em aberto para o livro")
+    public void existsByActiveBookIdTest() {
+        Loan loan = createAndPersistLoan();
+
+        assertThat(loanRepository.existsByActiveBookId(loan.getBook().getId())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve recusar um segundo empréstimo em aberto para o mesmo livro")
+    public void duplicatedActiveLoanTest() {
+        Loan loan = createAndPersistLoan();
+        Loan other = Loan.builder().book(loan.getBook()).customer("Beltrano").activeBookId(loan.getBook().getId()).build();
+
+        Throwable exception = catchThrowable(() -> loanRepository.saveAndFlush(other));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos por isbn e cliente")
+    public void findByIsbnAndCustomerTest() {
+        Loan loan = createAndPersistLoan();
+
+        Page<Loan> byIsbn = loanRepository.findByIsbnAndCustomer("123", null, PageRequest.of(0, 10));
+        Page<Loan> byCustomer = loanRepository.findByIsbnAndCustomer(null, "fulano", PageRequest.of(0, 10));
+        Page<Loan> byOtherCustomer = loanRepository.findByIsbnAndCustomer("123", "Beltrano", PageRequest.of(0, 10));
+
+        assertThat(byIsbn.getContent()).containsExactly(loan);
+        assertThat(byCustomer.getContent()).containsExactly(loan);
+        assertThat(byOtherCustomer.getTotalElements()).isEqualTo(0);
+    }
+
+    private Loan createAndPersistLoan() {
+        Book book = Book.builder().title("Livro").author("Autor").isbn("123").build();
+        entityManager.persist(book);
+        Loan loan = Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .activeBookId(book.getId())
+                .build();
+        entityManager.persist(loan);
+        return loan;
+    }
+}
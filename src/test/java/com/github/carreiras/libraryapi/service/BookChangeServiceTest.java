@@ -0,0 +1,110 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import com.github.carreiras.libraryapi.model.repository.BookChangeRepository;
+import com.github.carreiras.libraryapi.service.impl.BookChangeServiceImpl;
+import com.github.carreiras.libraryapi.service.impl.BookShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.when;
+
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class BookChangeServiceTest {
+
+    BookChangeService changeService;
+
+    @MockBean
+    BookChangeRepository changeRepository;
+
+    @BeforeEach
+    public void setUp() {
+        this.changeService = new BookChangeServiceImpl(changeRepository, new BookShards(Optional.empty(), null), null,
+                Duration.ofHours(24), Duration.ofSeconds(10), Duration.ofSeconds(5), Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Deve parar na lacuna recente de offsets, que pode ser uma transação não confirmada")
+    public void stopAtRecentGapTest() {
+        Instant now = Instant.now();
+        when(changeRepository.findByIdGreaterThanOrderById(4l, PageRequest.of(0, 10)))
+                .thenReturn(Arrays.asList(change(5l, now), change(6l, now), change(8l, now)));
+
+        List<BookChange> changes = changeService.findAfter(new long[]{4}, 10);
+
+        assertThat(changes).extracting(BookChange::getId).containsExactly(5l, 6l);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar a lacuna quando a alteração seguinte já passou do tempo de espera")
+    public void skipSettledGapTest() {
+        Instant old = Instant.now().minusSeconds(60);
+        when(changeRepository.findByIdGreaterThanOrderById(4l, PageRequest.of(0, 10)))
+                .thenReturn(Arrays.asList(change(6l, old), change(7l, Instant.now()), change(9l, Instant.now())));
+
+        List<BookChange> changes = changeService.findAfter(new long[]{4}, 10);
+
+        assertThat(changes).extracting(BookChange::getId).containsExactly(6l, 7l);
+    }
+
+    @Test
+    @DisplayName("Deve indicar offset expirado apenas quando alterações seguintes já foram removidas")
+    public void expiredOffsetTest() {
+        when(changeRepository.findMinId()).thenReturn(10l);
+
+        assertThat(changeService.isExpired(new long[]{0})).isFalse();
+        assertThat(changeService.isExpired(new long[]{9})).isFalse();
+        assertThat(changeService.isExpired(new long[]{8})).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve desfazer a transação que chega ao commit depois do prazo do outbox")
+    public void slowTransactionTest() throws Exception {
+        BookChangeServiceImpl changeService = new BookChangeServiceImpl(changeRepository, new BookShards(Optional.empty(), null), null,
+                Duration.ofHours(24), Duration.ofSeconds(10), Duration.ofMillis(50), Duration.ofMinutes(1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        Throwable exception;
+        try {
+            changeService.updated(Book.builder().id(1l).title("Livro").build());
+            Thread.sleep(100);
+            exception = catchThrowable(() -> TransactionSynchronizationUtils.triggerBeforeCommit(false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(exception).isInstanceOf(TransactionTimedOutException.class);
+    }
+
+    @Test
+    @DisplayName("Não deve aceitar prazo de transação maior ou igual ao tempo de espera das lacunas")
+    public void transactionTimeoutAboveSettleTest() {
+        Throwable exception = catchThrowable(() -> new BookChangeServiceImpl(changeRepository, new BookShards(Optional.empty(), null), null,
+                Duration.ofHours(24), Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofMinutes(1)));
+
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BookChange change(Long id, Instant changedAt) {
+        return BookChange.builder().id(id).type(BookChange.Type.UPDATED).bookId(1l).changedAt(changedAt).build();
+    }
+}
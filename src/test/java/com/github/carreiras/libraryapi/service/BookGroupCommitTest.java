@@ -0,0 +1,152 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.service.impl.BookGroupCommit;
+import com.github.carreiras.libraryapi.service.impl.BookShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class BookGroupCommitTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    ExecutorService callers = Executors.newFixedThreadPool(3);
+
+    BookGroupCommit groupCommit;
+
+    @MockBean
+    BookService bookService;
+
+    @AfterEach
+    public void tearDown() {
+        callers.shutdownNow();
+        groupCommit.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve gravar as inclusões concorrentes em um lote e devolver o erro de isbn duplicado só a quem o causou")
+    public void saveBatchTest() throws Exception {
+        start(3);
+        when(bookService.saveAll(anyList())).thenAnswer(invocation -> invocation.<List<Book>>getArgument(0).stream()
+                .filter(book -> !book.getIsbn().equals("002"))
+                .collect(Collectors.toList()));
+
+        CompletableFuture<Book> first = save(createBook("001"));
+        CompletableFuture<Book> duplicate = save(createBook("002"));
+        CompletableFuture<Book> third = save(createBook("003"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getIsbn()).isEqualTo("001");
+        assertThat(third.get(5, TimeUnit.SECONDS).getIsbn()).isEqualTo("003");
+        assertThat(catchThrowable(() -> duplicate.get(5, TimeUnit.SECONDS)))
+                .hasCauseInstanceOf(BusinessException.class)
+                .hasRootCauseMessage(BookService.DUPLICATE_ISBN);
+        verify(bookService, times(1)).saveAll(anyList());
+        assertThat(meterRegistry.get(BookGroupCommit.BATCH_SIZE_SUMMARY).summary().totalAmount()).isEqualTo(3);
+        assertThat(meterRegistry.get(BookGroupCommit.QUEUE_DELAY_TIMER).timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve gravar os livros um a um quando o lote falhar, isolando o erro")
+    public void fallbackToSingleSavesTest() throws Exception {
+        start(2);
+        when(bookService.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            if (books.size() > 1) {
+                books.forEach(book -> book.setId(1l));
+                throw new BusinessException(BookService.DUPLICATE_ISBN);
+            }
+            Book book = books.get(0);
+            if (book.getIsbn().equals("002") || book.getId() != null)
+                throw new BusinessException(BookService.DUPLICATE_ISBN);
+            return Collections.singletonList(book);
+        });
+
+        CompletableFuture<Book> saved = save(createBook("001"));
+        CompletableFuture<Book> duplicate = save(createBook("002"));
+
+        assertThat(saved.get(5, TimeUnit.SECONDS).getIsbn()).isEqualTo("001");
+        assertThat(catchThrowable(() -> duplicate.get(5, TimeUnit.SECONDS)))
+                .hasCauseInstanceOf(BusinessException.class)
+                .hasRootCauseMessage(BookService.DUPLICATE_ISBN);
+        verify(bookService, times(3)).saveAll(anyList());
+        assertThat(meterRegistry.get(BookGroupCommit.BATCH_SIZE_SUMMARY).summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve recusar a inclusão depois que o group commit foi encerrado")
+    public void saveAfterShutdownTest() {
+        start(2);
+        groupCommit.shutdown();
+
+        Throwable exception = catchThrowable(() -> groupCommit.save(createBook("001")));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        verify(bookService, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Deve desistir de aguardar o lote após a janela e o prazo configurado")
+    public void saveTimeoutTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        start(1, Duration.ofMillis(5), Duration.ofMillis(100));
+        when(bookService.saveAll(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return invocation.getArgument(0);
+        });
+
+        CompletableFuture<Book> first = save(createBook("001"));
+        Throwable exception = catchThrowable(() -> first.get(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertThat(exception).hasCauseInstanceOf(QueryTimeoutException.class);
+    }
+
+    private void start(int maxBatch) {
+        start(maxBatch, Duration.ofSeconds(5), Duration.ofSeconds(5));
+    }
+
+    private void start(int maxBatch, Duration window, Duration timeout) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("bookService", bookService);
+        ObjectProvider<BookService> books = beanFactory.getBeanProvider(BookService.class);
+        groupCommit = new BookGroupCommit(books, new BookShards(Optional.empty(), null), meterRegistry,
+                true, maxBatch, window, timeout);
+        groupCommit.start();
+    }
+
+    private CompletableFuture<Book> save(Book book) {
+        return CompletableFuture.supplyAsync(() -> groupCommit.save(book), callers);
+    }
+
+    private static Book createBook(String isbn) {
+        return Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.repository.BookRepository;
+import com.github.carreiras.libraryapi.service.impl.BookServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookServiceCacheTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCache(BookServiceImpl.BOOKS_CACHE).clear();
+    }
+
+    @Test
+    @DisplayName("Deve consultar a base apenas uma vez para o mesmo Id")
+    public void findByIdCachedTest() {
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.of(createBook()));
+
+        bookService.findById(1l);
+        Optional<Book> foundBook = bookService.findById(1l);
+
+        assertThat(foundBook.isPresent()).isTrue();
+        verify(bookRepository, times(1)).findDetachedById(1l);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar em cache um livro inexistente")
+    public void findByIdNotFoundNotCachedTest() {
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.empty());
+
+        bookService.findById(1l);
+        bookService.findById(1l);
+
+        verify(bookRepository, times(2)).findDetachedById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve retirar o livro do cache ao atualizá-lo")
+    public void updateEvictsCacheTest() {
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.of(createBook()));
+        Book updatedBook = Book.builder().id(1l).title("Outro Livro").author("Outro Autor").isbn("001").build();
+        when(bookRepository.save(any(Book.class))).thenReturn(updatedBook);
+
+        bookService.findById(1l);
+        bookService.update(Book.builder().id(1l).title("Outro Livro").author("Outro Autor").isbn("001").build());
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.of(updatedBook));
+        Optional<Book> foundBook = bookService.findById(1l);
+
+        assertThat(foundBook.get().getTitle()).isEqualTo("Outro Livro");
+        verify(bookRepository, times(2)).findDetachedById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve remover o livro do cache ao deletá-lo")
+    public void deleteEvictsCacheTest() {
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.of(createBook()));
+
+        bookService.findById(1l);
+        bookService.delete(Book.builder().id(1l).build());
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.empty());
+        Optional<Book> foundBook = bookService.findById(1l);
+
+        assertThat(foundBook.isPresent()).isFalse();
+        verify(bookRepository, times(2)).findDetachedById(1l);
+    }
+
+    private Book createBook() {
+        return Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build();
+    }
+}
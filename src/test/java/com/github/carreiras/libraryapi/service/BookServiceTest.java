@@ -2,29 +2,63 @@ package com.github.carreiras.libraryapi.service;
 
 import com.github.carreiras.libraryapi.api.exception.BusinessException;
 import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.BookChange;
+import com.github.carreiras.libraryapi.model.repository.BookChangeRepository;
+import com.github.carreiras.libraryapi.model.repository.BookCursor;
 import com.github.carreiras.libraryapi.model.repository.BookRepository;
+import com.github.carreiras.libraryapi.service.impl.BookChangeServiceImpl;
+import com.github.carreiras.libraryapi.service.impl.BookFacets;
+import com.github.carreiras.libraryapi.service.impl.BookGroupCommit;
+import com.github.carreiras.libraryapi.service.impl.BookMetrics;
+import com.github.carreiras.libraryapi.service.impl.BookSearchIndex;
 import com.github.carreiras.libraryapi.service.impl.BookServiceImpl;
+import com.github.carreiras.libraryapi.service.impl.BookShards;
+import com.github.carreiras.libraryapi.service.impl.BookWrites;
+import com.github.carreiras.libraryapi.service.impl.IsbnIndex;
+import com.github.carreiras.libraryapi.service.impl.ReadYourWrites;
+import com.github.carreiras.libraryapi.service.impl.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Example;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -34,12 +68,37 @@ class BookServiceTest {
 
     BookService bookService;
 
+    IsbnIndex isbnIndex;
+
+    BookSearchIndex searchIndex;
+
+    BookFacets facets;
+
+    SimpleMeterRegistry meterRegistry;
+
+    ConcurrentMapCacheManager cacheManager;
+
     @MockBean
     BookRepository bookRepository;
 
+    @MockBean
+    BookChangeRepository changeRepository;
+
     @BeforeEach
     public void setUp() {
-        this.bookService = new BookServiceImpl(bookRepository);
+        BookShards shards = new BookShards(Optional.empty(), null);
+        this.isbnIndex = new IsbnIndex(bookRepository, shards);
+        this.searchIndex = new BookSearchIndex(bookRepository, shards);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.facets = new BookFacets(bookRepository, shards, mock(PlatformTransactionManager.class), meterRegistry, Duration.ofMinutes(10));
+        this.cacheManager = new ConcurrentMapCacheManager(BookServiceImpl.BOOKS_CACHE);
+        ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ZERO);
+        this.bookService = new BookServiceImpl(bookRepository, isbnIndex, searchIndex, facets, new BookMetrics(meterRegistry),
+                new BookWrites(isbnIndex, searchIndex, facets, readYourWrites, cacheManager),
+                new SingleFlight(meterRegistry, new StandardEnvironment()), readYourWrites, shards,
+                new BookChangeServiceImpl(changeRepository, shards, null, Duration.ofHours(24), Duration.ofSeconds(10), Duration.ofSeconds(5), Duration.ofMinutes(1)),
+                new BookGroupCommit(null, shards, meterRegistry, false, 100, Duration.ofMillis(5), Duration.ofSeconds(5)),
+                mock(PlatformTransactionManager.class));
     }
 
     @Test
@@ -72,12 +131,99 @@ class BookServiceTest {
         verify(bookRepository, never()).save(book);
     }
 
+    @Test
+    @DisplayName("Deve registrar a métrica da operação com o resultado de isbn duplicado")
+    public void recordDuplicatedIsbnMetricTest() {
+        Book book = Book.builder().title("Livro").author("Autor").isbn("001").build();
+        when(bookRepository.existsByIsbn(anyString())).thenReturn(true);
+
+        catchThrowable(() -> bookService.save(book));
+
+        assertThat(meterRegistry.find(BookMetrics.OPERATIONS_TIMER)
+                .tags("operation", "save", "outcome", "duplicate_isbn")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve registrar a métrica da operação com o resultado de livro não encontrado")
+    public void recordNotFoundMetricTest() {
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.empty());
+
+        bookService.findById(1l);
+
+        assertThat(meterRegistry.find(BookMetrics.OPERATIONS_TIMER)
+                .tags("operation", "findById", "outcome", "not_found")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Não deve consultar a base quando o isbn não estiver no índice carregado")
+    public void saveBookWithoutIsbnQueryTest() {
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.of("002"));
+        isbnIndex.warmUp();
+        Book book = createBook();
+        when(bookRepository.save(book)).thenReturn(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build());
+
+        bookService.save(book);
+
+        verify(bookRepository, never()).existsByIsbn(anyString());
+        assertThat(isbnIndex.mightContain("001")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negocio quando a base recusar o isbn duplicado")
+    public void shouldTranslateIsbnConstraintViolation() {
+        Book book = createBook();
+        when(bookRepository.save(book)).thenThrow(new DataIntegrityViolationException(
+                "Unique index or primary key violation: \"PUBLIC.UK_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN)\""));
+
+        Throwable exception = catchThrowable(() -> bookService.save(book));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Isbn já cadastrado.");
+    }
+
+    @Test
+    @DisplayName("Deve salvar em lote apenas os livros com isbn não cadastrado")
+    public void saveAllBooksTest() {
+        Book book = createBook();
+        Book existingBook = Book.builder().title("Outro Livro").author("Outro Autor").isbn("002").build();
+        Book repeatedBook = createBook();
+        when(bookRepository.findIsbnByIsbnIn(anyCollection())).thenReturn(Arrays.asList("002"));
+        when(bookRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Book> savedBooks = bookService.saveAll(Arrays.asList(book, existingBook, repeatedBook));
+
+        assertThat(savedBooks).containsExactly(book);
+        verify(bookRepository, never()).existsByIsbn(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Deve conferir e gravar em lotes de mil livros, esvaziando o contexto a cada lote")
+    public void saveAllBooksInChunksTest() {
+        List<Book> books = IntStream.range(0, 2500)
+                .mapToObj(i -> Book.builder().title("Livro").author("Autor").isbn(String.valueOf(i)).build())
+                .collect(Collectors.toList());
+        when(bookRepository.findIsbnByIsbnIn(anyCollection())).thenReturn(Collections.emptyList());
+        when(bookRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Book> savedBooks = bookService.saveAll(books);
+
+        ArgumentCaptor<Collection<String>> candidates = ArgumentCaptor.forClass(Collection.class);
+        verify(bookRepository, times(3)).findIsbnByIsbnIn(candidates.capture());
+        assertThat(candidates.getAllValues()).extracting(Collection::size).containsExactly(1000, 1000, 500);
+        verify(bookRepository, times(3)).flushAndClear();
+        assertThat(savedBooks).hasSize(2500);
+    }
+
     @Test
     @DisplayName("Deve obter um livro por Id.")
     public void findByIdTest() {
         Book book = createBook();
         book.setId(1l);
-        when(bookRepository.findById(1l)).thenReturn(Optional.of(book));
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.of(book));
 
         Optional<Book> foundBook = bookService.findById(1l);
 
@@ -91,7 +237,7 @@ class BookServiceTest {
     @Test
     @DisplayName("Deve retornar vazio ao obter um livro por Id quando ele não existe na base")
     public void findByIdNotFoundTest() {
-        when(bookRepository.findById(1l)).thenReturn(Optional.empty());
+        when(bookRepository.findDetachedById(1l)).thenReturn(Optional.empty());
 
         Optional<Book> foundBook = bookService.findById(1l);
 
@@ -109,6 +255,18 @@ class BookServiceTest {
         verify(bookRepository, times(1)).delete(book);
     }
 
+    @Test
+    @DisplayName("Deve remover o isbn do índice ao deletar um livro.")
+    public void deleteBookRemovesIsbnFromIndexTest() {
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.of("001"));
+        isbnIndex.warmUp();
+        Book book = Book.builder().id(1l).isbn("001").build();
+
+        bookService.delete(book);
+
+        assertThat(isbnIndex.mightContain("001")).isFalse();
+    }
+
     @Test
     @DisplayName("Deve ocorrer erro ao tentar deletar um livro inexistente")
     public void deleteInvalidBookTest() {
@@ -152,7 +310,7 @@ class BookServiceTest {
         PageRequest pageRequest = PageRequest.of(0, 10);
         List<Book> lista = Arrays.asList(book);
         PageImpl<Book> page = new PageImpl<>(lista, PageRequest.of(0, 10), 1);
-        when(bookRepository.findAll(any(Example.class), any(PageRequest.class))).thenReturn(page);
+        when(bookRepository.findPage(book, pageRequest)).thenReturn(page);
 
         Page<Book> result = bookService.find(book, pageRequest);
 
@@ -162,6 +320,342 @@ class BookServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve buscar livros pelo índice ordenados por relevância")
+    public void searchBookTest() {
+        Book byTitle = Book.builder().id(1l).title("Dom Casmurro").author("Machado de Assis").isbn("001").build();
+        Book byAuthor = Book.builder().id(2l).title("Memórias").author("Casmurro").isbn("002").build();
+        Book other = Book.builder().id(3l).title("Iracema").author("José de Alencar").isbn("003").build();
+        when(bookRepository.streamAll(null, null, null)).thenReturn(Stream.of(byAuthor, byTitle, other));
+        searchIndex.warmUp();
+        when(bookRepository.findDetachedByIdIn(Arrays.asList(1l, 2l))).thenReturn(Arrays.asList(byAuthor, byTitle));
+
+        Page<Book> result = bookService.search("casm", PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).containsExactly(byTitle, byAuthor);
+    }
+
+    @Test
+    @DisplayName("Deve buscar na base por título ou autor enquanto o índice não foi carregado")
+    public void searchBookBeforeWarmUpTest() {
+        Book byAuthor = Book.builder().id(2l).title("Memórias").author("Casmurro").isbn("002").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(bookRepository.searchPage("casm", pageRequest)).thenReturn(new PageImpl<>(Arrays.asList(byAuthor), pageRequest, 1));
+
+        Page<Book> result = bookService.search("casm", pageRequest);
+
+        assertThat(result.getContent()).containsExactly(byAuthor);
+        verify(bookRepository, never()).findPage(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar parcialmente um livro e reindexar apenas o campo alterado")
+    public void patchBookTest() {
+        Book book = Book.builder().id(1l).title("Dom Casmurro").author("Machado de Assis").isbn("001").build();
+        when(bookRepository.streamAll(null, null, null)).thenReturn(Stream.of(book));
+        searchIndex.warmUp();
+        Book changes = Book.builder().id(1l).title("Memórias Póstumas").build();
+        when(bookRepository.patch(changes)).thenReturn(1);
+
+        boolean patched = bookService.patch(changes);
+
+        assertThat(patched).isTrue();
+        assertThat(searchIndex.search("memorias machado")).containsExactly(1l);
+        assertThat(searchIndex.search("casmurro")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve informar quais livros não foram atualizados parcialmente")
+    public void patchAllBooksTest() {
+        Book found = Book.builder().id(1l).title("Livro").build();
+        Book missing = Book.builder().id(2l).title("Livro").build();
+        when(bookRepository.patch(found)).thenReturn(1);
+        when(bookRepository.patch(missing)).thenReturn(0);
+
+        List<Long> patched = bookService.patchAll(Arrays.asList(found, missing));
+
+        assertThat(patched).containsExactly(1l);
+    }
+
+    @Test
+    @DisplayName("Deve retirar o livro alterado do cache e atualizar a busca só após o commit")
+    public void patchAndUpdateAfterCommitTest() {
+        when(bookRepository.streamAll(null, null, null)).thenReturn(Stream.of(Book.builder().id(1l).title("Livro").author("Autor").isbn("001").build()));
+        searchIndex.warmUp();
+        Book changes = Book.builder().id(1l).title("Dom Casmurro").build();
+        Book updated = Book.builder().id(2l).title("Quincas Borba").author("Machado").isbn("002").build();
+        when(bookRepository.patch(changes)).thenReturn(1);
+        when(bookRepository.save(updated)).thenReturn(updated);
+        Cache cache = cacheManager.getCache(BookServiceImpl.BOOKS_CACHE);
+        cache.put(1l, Optional.of(createBook()));
+        cache.put(2l, Optional.of(createBook()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookService.patch(changes);
+            bookService.update(updated);
+            assertThat(cache.get(1l)).isNotNull();
+            assertThat(cache.get(2l)).isNotNull();
+            assertThat(searchIndex.search("casmurro")).isEmpty();
+            assertThat(searchIndex.search("borba")).isEmpty();
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get(1l)).isNull();
+        assertThat(cache.get(2l)).isNull();
+        assertThat(searchIndex.search("casmurro")).containsExactly(1l);
+        assertThat(searchIndex.search("borba")).containsExactly(2l);
+    }
+
+    @Test
+    @DisplayName("Deve retirar os livros atualizados em lote do cache só após o commit")
+    public void patchAllEvictsAfterCommitTest() {
+        Book book = Book.builder().id(1l).title("Livro").build();
+        when(bookRepository.patch(book)).thenReturn(1);
+        Cache cache = cacheManager.getCache(BookServiceImpl.BOOKS_CACHE);
+        cache.put(1l, Optional.of(book));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookService.patchAll(Collections.singletonList(book));
+            assertThat(cache.get(1l)).isNotNull();
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get(1l)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Deve registrar no outbox apenas as alterações efetivadas")
+    public void recordChangesTest() {
+        Book found = Book.builder().id(1l).title("Livro").version(2l).build();
+        Book missing = Book.builder().id(2l).title("Livro").build();
+        when(bookRepository.patch(found)).thenReturn(1);
+        when(bookRepository.patch(missing)).thenReturn(0);
+        when(bookRepository.save(any())).thenReturn(Book.builder().id(3l).title("Livro").author("Autor").isbn("001").version(0l).build());
+
+        bookService.patchAll(Arrays.asList(found, missing));
+        bookService.save(createBook());
+
+        ArgumentCaptor<List<BookChange>> changes = ArgumentCaptor.forClass(List.class);
+        verify(changeRepository, times(2)).saveAll(changes.capture());
+        assertThat(changes.getAllValues()).flatExtracting(recorded -> recorded)
+                .extracting(BookChange::getType, BookChange::getBookId, BookChange::getVersion)
+                .containsExactly(tuple(BookChange.Type.UPDATED, 1l, 3l), tuple(BookChange.Type.CREATED, 3l, 0l));
+    }
+
+    @Test
+    @DisplayName("Deve remover em lote os livros do filtro e retirá-los dos índices")
+    public void deleteAllBooksTest() {
+        Book book = Book.builder().id(1l).title("Dom Casmurro").author("Machado de Assis").isbn("001").build();
+        when(bookRepository.streamAll(null, null, null)).thenReturn(Stream.of(book));
+        searchIndex.warmUp();
+        Book filter = Book.builder().author("Machado").build();
+        when(bookRepository.findIsbnById(filter, null)).thenReturn(Collections.singletonMap(1l, "001"));
+        when(bookRepository.deleteByIdIn(Arrays.asList(1l))).thenReturn(1);
+
+        int deleted = bookService.deleteAll(null, filter);
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(searchIndex.search("casmurro")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao remover um livro com empréstimos")
+    public void deleteBookWithLoansTest() {
+        DataIntegrityViolationException violation = new DataIntegrityViolationException(
+                "Referential integrity constraint violation: \"FK_LOAN_BOOK: PUBLIC.LOAN FOREIGN KEY(ID_BOOK) REFERENCES PUBLIC.BOOK(ID) (1)\"");
+        when(bookRepository.deleteByIdAndVersion(1l, null)).thenThrow(violation);
+        when(bookRepository.findIsbnById(any(), eq(Arrays.asList(1l)))).thenReturn(Collections.singletonMap(1l, "001"));
+        when(bookRepository.deleteByIdIn(Arrays.asList(1l))).thenThrow(violation);
+        doThrow(violation).when(bookRepository).flush();
+
+        Throwable single = catchThrowable(() -> bookService.deleteById(1l, null));
+        Throwable bulk = catchThrowable(() -> bookService.deleteAll(Arrays.asList(1l), new Book()));
+        Throwable legacy = catchThrowable(() -> bookService.delete(Book.builder().id(1l).isbn("001").build()));
+
+        assertThat(single).isInstanceOf(BusinessException.class).hasMessage(BookServiceImpl.BOOK_HAS_LOANS);
+        assertThat(bulk).isInstanceOf(BusinessException.class).hasMessage(BookServiceImpl.BOOK_HAS_LOANS);
+        assertThat(legacy).isInstanceOf(BusinessException.class).hasMessage(BookServiceImpl.BOOK_HAS_LOANS);
+    }
+
+    @Test
+    @DisplayName("Deve retirar o livro removido por id do cache e do índice de isbns só após o commit")
+    public void deleteByIdAfterCommitTest() {
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.of("001"));
+        isbnIndex.warmUp();
+        when(bookRepository.findIsbnById(any(), eq(Arrays.asList(1l)))).thenReturn(Collections.singletonMap(1l, "001"));
+        when(bookRepository.deleteByIdAndVersion(1l, 2l)).thenReturn(1);
+        Cache cache = cacheManager.getCache(BookServiceImpl.BOOKS_CACHE);
+        cache.put(1l, Optional.of(createBook()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(bookService.deleteById(1l, 2l)).isTrue();
+            assertThat(cache.get(1l)).isNotNull();
+            assertThat(isbnIndex.mightContain("001")).isTrue();
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get(1l)).isNull();
+        assertThat(isbnIndex.mightContain("001")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve retirar os livros removidos em lote do cache só após o commit")
+    public void deleteAllEvictsAfterCommitTest() {
+        when(bookRepository.findIsbnById(null, Arrays.asList(1l))).thenReturn(Collections.singletonMap(1l, "001"));
+        when(bookRepository.deleteByIdIn(Arrays.asList(1l))).thenReturn(1);
+        Cache cache = cacheManager.getCache(BookServiceImpl.BOOKS_CACHE);
+        cache.put(1l, Optional.of(createBook()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookService.deleteAll(Arrays.asList(1l), null);
+            assertThat(cache.get(1l)).isNotNull();
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get(1l)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve paginar o resultado da busca e refletir as alterações no índice")
+    public void searchBookPaginationTest() {
+        when(bookRepository.streamAll(null, null, null)).thenReturn(Stream.empty());
+        searchIndex.warmUp();
+        Book first = Book.builder().id(1l).title("Livro Um").author("Autor").isbn("001").build();
+        Book second = Book.builder().id(2l).title("Livro Dois").author("Autor").isbn("002").build();
+        when(bookRepository.save(first)).thenReturn(first);
+        when(bookRepository.save(second)).thenReturn(second);
+        bookService.save(first);
+        bookService.save(second);
+        bookService.delete(first);
+        when(bookRepository.findDetachedByIdIn(Arrays.asList(2l))).thenReturn(Arrays.asList(second));
+
+        Page<Book> result = bookService.search("livro autor", PageRequest.of(0, 1));
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).containsExactly(second);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar as contagens por autor a cada inclusão, alteração e remoção")
+    public void facetsTest() {
+        Book first = Book.builder().id(1l).title("Dom Casmurro").author("Machado de Assis").isbn("001").build();
+        Book second = Book.builder().id(2l).title("Iracema").author("José de Alencar").isbn("002").build();
+        when(bookRepository.streamAll(null, null, null)).thenReturn(Stream.of(first, second));
+        facets.warmUp();
+        Book third = Book.builder().id(3l).title("Helena").author("Machado de Assis").isbn("003").build();
+        when(bookRepository.save(third)).thenReturn(third);
+        when(bookRepository.patch(any())).thenReturn(1);
+        when(bookRepository.deleteByIdAndVersion(1l, null)).thenReturn(1);
+
+        bookService.save(third);
+        bookService.patch(Book.builder().id(2l).author("Mário de Andrade").build());
+        assertThat(bookService.facets("author", null, 10))
+                .containsExactly(entry("Machado de Assis", 2l), entry("Mário de Andrade", 1l));
+        bookService.deleteById(1l, null);
+
+        assertThat(bookService.facets("author", "Ma", 1)).containsExactly(entry("Machado de Assis", 1l));
+        assertThat(bookService.facets("title", "I", 10)).containsExactly(entry("Iracema", 1l));
+        facets.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve reconciliar as contagens com a tabela mantendo os livros alterados durante a leitura")
+    public void reconcileFacetsTest() {
+        Book book = Book.builder().id(1l).title("Dom Casmurro").author("Machado de Assis").isbn("001").build();
+        Book deleted = Book.builder().id(2l).title("Iracema").author("José de Alencar").isbn("002").build();
+        when(bookRepository.streamAll(null, null, null)).thenReturn(Stream.of(book));
+        facets.warmUp();
+        facets.remove(1l);
+        when(bookRepository.streamAll(null, null, null))
+                .thenReturn(Stream.of(book, deleted).peek(read -> facets.remove(deleted.getId())));
+
+        facets.reconcile();
+
+        assertThat(bookService.facets("author", null, 10)).containsExactly(entry("Machado de Assis", 1l));
+        assertThat(meterRegistry.counter(BookFacets.CORRECTIONS_COUNTER).count()).isEqualTo(2);
+        facets.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve manter as contagens e contar a falha quando a reconciliação falhar")
+    public void reconcileFacetsFailureTest() {
+        Book book = Book.builder().id(1l).title("Dom Casmurro").author("Machado de Assis").isbn("001").build();
+        when(bookRepository.streamAll(null, null, null)).thenReturn(Stream.of(book));
+        facets.warmUp();
+        when(bookRepository.streamAll(null, null, null)).thenThrow(new IllegalStateException("Base indisponível"));
+
+        facets.tryReconcile();
+
+        assertThat(bookService.facets("author", null, 10)).containsExactly(entry("Machado de Assis", 1l));
+        assertThat(meterRegistry.counter(BookFacets.RECONCILE_FAILURES_COUNTER).count()).isEqualTo(1);
+        facets.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve subir sem as contagens e contar a falha quando a primeira carga falhar")
+    public void warmUpFacetsFailureTest() {
+        Book book = Book.builder().id(1l).title("Dom Casmurro").author("Machado de Assis").isbn("001").build();
+        when(bookRepository.streamAll(null, null, null)).thenThrow(new IllegalStateException("Base indisponível"));
+        when(bookRepository.countBy("author", null, 10)).thenReturn(Collections.singletonMap("Machado de Assis", 1l));
+
+        facets.warmUp();
+
+        assertThat(facets.isReady()).isFalse();
+        assertThat(meterRegistry.counter(BookFacets.RECONCILE_FAILURES_COUNTER).count()).isEqualTo(1);
+        assertThat(bookService.facets("author", null, 10)).containsExactly(entry("Machado de Assis", 1l));
+        verify(bookRepository).countBy("author", null, 10);
+
+        doReturn(Stream.of(book)).when(bookRepository).streamAll(null, null, null);
+        facets.tryReconcile();
+
+        assertThat(facets.isReady()).isTrue();
+        assertThat(bookService.facets("author", null, 10)).containsExactly(entry("Machado de Assis", 1l));
+        verify(bookRepository).countBy("author", null, 10);
+        facets.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve agrupar na base enquanto as contagens não foram carregadas e recusar campo inválido")
+    public void facetsBeforeWarmUpTest() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("Machado de Assis", 2l);
+        counts.put("Mário de Andrade", 1l);
+        when(bookRepository.countBy("author", "Ma", 10)).thenReturn(counts);
+
+        assertThat(bookService.facets("author", "Ma", 10)).containsExactlyEntriesOf(counts);
+        Throwable exception = catchThrowable(() -> bookService.facets("isbn", null, 10));
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Campo inválido para contagem.");
+    }
+
+    @Test
+    @DisplayName("Deve indicar a próxima página da listagem por cursor sem contar os registros")
+    public void findAfterTest() {
+        Book filter = new Book();
+        BookCursor cursor = BookCursor.first("id");
+        List<Book> books = Arrays.asList(Book.builder().id(1l).build(), Book.builder().id(2l).build(), Book.builder().id(3l).build());
+        when(bookRepository.findAfter(filter, cursor, 3)).thenReturn(books);
+
+        Slice<Book> result = bookService.findAfter(filter, cursor, 2);
+
+        assertThat(result.getContent()).containsExactly(books.get(0), books.get(1));
+        assertThat(result.hasNext()).isTrue();
+        verify(bookRepository, never()).count();
+    }
+
     private Book createBook() {
         return Book.builder().title("Livro").author("Autor").isbn("001").build();
     }
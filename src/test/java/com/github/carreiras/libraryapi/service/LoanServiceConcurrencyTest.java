@@ -0,0 +1,69 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LoanServiceConcurrencyTest {
+
+    static final int THREADS = 16;
+    static final int ATTEMPTS = 400;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    BookService bookService;
+
+    @Test
+    @DisplayName("Deve emprestar o livro uma única vez sob checkouts simultâneos do mesmo isbn")
+    public void concurrentCheckoutTest() throws Exception {
+        Book book = bookService.save(Book.builder().title("Livro").author("Autor").isbn("concorrente").build());
+        AtomicInteger loaned = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < ATTEMPTS; i++) {
+            String customer = "Cliente " + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                Book found = bookService.getBookByIsbn("concorrente").get();
+                try {
+                    loanService.save(Loan.builder().book(found).customer(customer).loanDate(LocalDate.now()).build());
+                    loaned.incrementAndGet();
+                } catch (BusinessException ex) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(loaned.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(ATTEMPTS - 1);
+        assertThat(loanService.find(book.getIsbn(), null, PageRequest.of(0, 10)).getTotalElements())
+                .isEqualTo(1);
+    }
+}
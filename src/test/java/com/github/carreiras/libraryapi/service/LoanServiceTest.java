@@ -0,0 +1,107 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.api.exception.BusinessException;
+import com.github.carreiras.libraryapi.model.entity.Book;
+import com.github.carreiras.libraryapi.model.entity.Loan;
+import com.github.carreiras.libraryapi.model.repository.LoanRepository;
+import com.github.carreiras.libraryapi.service.impl.BookShards;
+import com.github.carreiras.libraryapi.service.impl.LoanServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class LoanServiceTest {
+
+    LoanService loanService;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @BeforeEach
+    public void setUp() {
+        this.loanService = new LoanServiceImpl(loanRepository, new BookShards(Optional.empty(), null));
+    }
+
+    @Test
+    @DisplayName("Deve salvar um empréstimo reservando o livro")
+    public void saveLoanTest() {
+        Loan loan = createLoan();
+        when(loanRepository.saveAndFlush(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Loan savedLoan = loanService.save(loan);
+
+        assertThat(savedLoan.getReturned()).isFalse();
+        assertThat(savedLoan.getActiveBookId()).isEqualTo(1l);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao emprestar um livro já emprestado")
+    public void loanedBookSaveTest() {
+        Loan loan = createLoan();
+        when(loanRepository.existsByActiveBookId(1l)).thenReturn(true);
+
+        Throwable exception = catchThrowable(() -> loanService.save(loan));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Livro já emprestado.");
+        verify(loanRepository, never()).saveAndFlush(loan);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio quando a base recusar um segundo empréstimo simultâneo")
+    public void concurrentLoanSaveTest() {
+        Loan loan = createLoan();
+        when(loanRepository.saveAndFlush(loan)).thenThrow(new DataIntegrityViolationException(
+                "Unique index or primary key violation: \"PUBLIC.UK_LOAN_ACTIVE_BOOK_INDEX_2 ON PUBLIC.LOAN(ACTIVE_BOOK_ID)\""));
+
+        Throwable exception = catchThrowable(() -> loanService.save(loan));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Livro já emprestado.");
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro ao devolver o empréstimo")
+    public void returnLoanTest() {
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setActiveBookId(1l);
+        loan.setReturned(true);
+        when(loanRepository.saveAndFlush(loan)).thenReturn(loan);
+
+        Loan updatedLoan = loanService.update(loan);
+
+        assertThat(updatedLoan.getActiveBookId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve ocorrer erro ao tentar atualizar um empréstimo inexistente")
+    public void updateInvalidLoanTest() {
+        Loan loan = createLoan();
+
+        assertThrows(IllegalArgumentException.class, () -> loanService.update(loan));
+
+        verify(loanRepository, never()).saveAndFlush(loan);
+    }
+
+    private Loan createLoan() {
+        return Loan.builder().customer("Fulano").book(Book.builder().id(1l).isbn("001").build()).build();
+    }
+}
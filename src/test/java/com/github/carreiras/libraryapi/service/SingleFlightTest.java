@@ -0,0 +1,133 @@
+package com.github.carreiras.libraryapi.service;
+
+import com.github.carreiras.libraryapi.service.impl.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class SingleFlightTest {
+
+    static final int THREADS = 16;
+
+    SimpleMeterRegistry meterRegistry;
+
+    SingleFlight singleFlight;
+
+    ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test",
+                Collections.singletonMap("library.single-flight.timeout.slow", "100ms")));
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.singleFlight = new SingleFlight(meterRegistry, environment);
+        this.executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @Test
+    @DisplayName("Deve executar uma única consulta para chamadas simultâneas com a mesma chave")
+    public void coalesceConcurrentCallsTest() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = submit(THREADS, () -> singleFlight.execute("findById", 1l, () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "livro";
+        }));
+        waitForFollowers(THREADS - 1);
+        release.countDown();
+
+        for (Future<String> result : results)
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("livro");
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(count("findById", "coalesced")).isEqualTo(THREADS - 1);
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Deve propagar o erro da consulta para todas as chamadas agrupadas")
+    public void propagateErrorTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = submit(2, () -> singleFlight.execute("find", "titulo", () -> {
+            await(release);
+            throw new IllegalStateException("falha na consulta");
+        }));
+        waitForFollowers(1);
+        release.countDown();
+
+        for (Future<String> result : results)
+            assertThat(catchThrowable(() -> result.get(5, TimeUnit.SECONDS)))
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasRootCauseMessage("falha na consulta");
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Deve esgotar a espera pelo tempo configurado para a operação")
+    public void timeoutTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("slow", 1l, () -> {
+            await(release);
+            return "livro";
+        }));
+        while (count("slow", "leader") == 0)
+            Thread.sleep(1);
+
+        Throwable exception = catchThrowable(() -> singleFlight.execute("slow", 1l, () -> "outro"));
+        release.countDown();
+
+        assertThat(exception).isInstanceOf(QueryTimeoutException.class);
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("livro");
+        assertThat(count("slow", "timeout")).isEqualTo(1);
+        executor.shutdownNow();
+    }
+
+    private List<Future<String>> submit(int calls, Callable<String> call) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < calls; i++)
+            results.add(executor.submit(call));
+        return results;
+    }
+
+    /**
+     * Os seguidores ficam bloqueados no futuro do líder; espera até que todos estejam nesse estado.
+     */
+    private void waitForFollowers(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (((ThreadPoolExecutor) executor).getActiveCount() < followers + 1 && System.nanoTime() < deadline)
+            Thread.sleep(1);
+        Thread.sleep(50);
+    }
+
+    private double count(String operation, String result) {
+        Counter counter = meterRegistry.find(SingleFlight.CALLS_COUNTER)
+                .tags("operation", operation, "result", result)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}